@@ -0,0 +1,146 @@
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal benchmark harness for the hot paths of the player. Each benchmark is warmed up, then timed over several
+ * batches, and reported as time per operation. Runs headless, so it can be tracked on build machines.
+ *
+ * Usage: <code>BenchmarkRunner [--filter regex] [--csv results.csv] [--warmup n] [--iterations n]</code>
+ */
+public class BenchmarkRunner {
+    private static final long BATCH_NANOS = 500_000_000L;
+
+    private final List<Entry> entries = new ArrayList<>();
+    private int warmup = 3;
+    private int iterations = 5;
+    private volatile int sink;
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        BenchmarkRunner runner = new BenchmarkRunner();
+        Pattern filter = Pattern.compile(".*");
+        String csv = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--filter":
+                    filter = Pattern.compile(args[++i]);
+                    break;
+                case "--csv":
+                    csv = args[++i];
+                    break;
+                case "--warmup":
+                    runner.warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "--iterations":
+                    runner.iterations = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        BenchmarkSuite[] suites = {
+                new DecodeBenchmarks(),
+                new TransitionBenchmarks(),
+                new PresentationFileBenchmarks(),
+                new PcmCopyBenchmarks(),
+                new ReorderBenchmarks()
+        };
+        for (BenchmarkSuite suite : suites)
+            suite.register(runner);
+        runner.run(filter, csv);
+    }
+
+    /**
+     * Adds a benchmark.
+     *
+     * @param name      name of the benchmark, used for filtering and in the report
+     * @param benchmark operation to time
+     */
+    public void add(String name, Benchmark benchmark) {
+        add(name, 0, benchmark);
+    }
+
+    /**
+     * Adds a benchmark that processes a known amount of data, so its throughput is reported as well.
+     *
+     * @param name       name of the benchmark, used for filtering and in the report
+     * @param bytesPerOp number of bytes processed by one operation
+     * @param benchmark  operation to time
+     */
+    public void add(String name, long bytesPerOp, Benchmark benchmark) {
+        entries.add(new Entry(name, bytesPerOp, benchmark));
+    }
+
+    private void run(Pattern filter, String csv) throws Exception {
+        try (PrintWriter report = csv == null ? null : new PrintWriter(new FileWriter(csv, true))) {
+            for (Entry entry : entries) {
+                if (!filter.matcher(entry.name).find())
+                    continue;
+                for (int i = 0; i < warmup; i++)
+                    batch(entry.benchmark);
+                double[] nanosPerOp = new double[iterations];
+                for (int i = 0; i < iterations; i++)
+                    nanosPerOp[i] = batch(entry.benchmark);
+                report(entry, nanosPerOp, report);
+            }
+        }
+    }
+
+    /**
+     * Runs the benchmark until the batch time is reached.
+     *
+     * @return the average time of one operation in nanoseconds
+     */
+    private double batch(Benchmark benchmark) throws Exception {
+        long operations = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            Object result = benchmark.run();
+            sink += result == null ? 0 : System.identityHashCode(result);
+            operations++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < BATCH_NANOS);
+        return (double) elapsed / operations;
+    }
+
+    private static void report(Entry entry, double[] nanosPerOp, PrintWriter csv) {
+        double mean = 0;
+        for (double value : nanosPerOp)
+            mean += value;
+        mean /= nanosPerOp.length;
+        double variance = 0;
+        for (double value : nanosPerOp)
+            variance += (value - mean) * (value - mean);
+        double deviation = Math.sqrt(variance / nanosPerOp.length);
+
+        String throughput = entry.bytesPerOp > 0
+                ? String.format(" %10.1f MB/s", entry.bytesPerOp / mean * 1e9 / (1024 * 1024)) : "";
+        System.out.printf("%-50s %14.3f us/op +- %.3f%s%n", entry.name, mean / 1e3, deviation / 1e3, throughput);
+        if (csv != null)
+            csv.printf("%d,%s,%.1f,%.1f%n", System.currentTimeMillis(), entry.name, mean, deviation);
+    }
+
+    /**
+     * Operation being timed. The result is consumed by the runner so the work cannot be optimized away.
+     */
+    public interface Benchmark {
+        Object run() throws Exception;
+    }
+
+    private static class Entry {
+        private final String name;
+        private final long bytesPerOp;
+        private final Benchmark benchmark;
+
+        private Entry(String name, long bytesPerOp, Benchmark benchmark) {
+            this.name = name;
+            this.bytesPerOp = bytesPerOp;
+            this.benchmark = benchmark;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+/**
+ * Group of benchmarks sharing their fixtures.
+ */
+public interface BenchmarkSuite {
+    /**
+     * Creates the fixtures and adds the benchmarks to the runner.
+     *
+     * @param runner runner the benchmarks are added to
+     * @throws Exception if the fixtures cannot be created
+     */
+    void register(BenchmarkRunner runner) throws Exception;
+}
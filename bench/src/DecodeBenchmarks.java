@@ -0,0 +1,57 @@
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * JPEG decode and scale, as done for every slide and thumbnail. Compares <code>ImageScaler</code> with the
+ * <code>ImageIO.read</code> + <code>getScaledInstance</code> path it replaced, on a 24 MP camera-sized image.
+ */
+public class DecodeBenchmarks implements BenchmarkSuite {
+    private static final int[][] TARGETS = {{600, 400}, {50, 50}};
+
+    @Override
+    public void register(BenchmarkRunner runner) throws IOException {
+        File image = createTestImage(6000, 4000);
+        for (int[] target : TARGETS) {
+            int width = target[0];
+            int height = target[1];
+            String size = width + "x" + height;
+            runner.add("decode.getScaledInstance." + size, () -> scaleOld(image, width, height));
+            runner.add("decode.imageScaler." + size, () -> ImageScaler.read(image, width, height));
+        }
+    }
+
+    /**
+     * The path used before <code>ImageScaler</code>. The scaled image is drawn once, as the first paint would.
+     */
+    private static BufferedImage scaleOld(File file, int width, int height) throws IOException {
+        BufferedImage img = ImageIO.read(file);
+        Image dimg = img.getScaledInstance(width, height, Image.SCALE_SMOOTH);
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = result.createGraphics();
+        g2d.drawImage(dimg, 0, 0, null);
+        g2d.dispose();
+        return result;
+    }
+
+    /**
+     * Writes a JPEG with enough detail to make the decoder work like on a photo.
+     */
+    static File createTestImage(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            g2d.setColor(new Color(random.nextInt(0xFFFFFF)));
+            g2d.fillOval(random.nextInt(width), random.nextInt(height), random.nextInt(800), random.nextInt(800));
+        }
+        g2d.dispose();
+        File file = File.createTempFile("benchmark-slide", ".jpg");
+        file.deleteOnExit();
+        ImageIO.write(image, "jpg", file);
+        return file;
+    }
+}
@@ -0,0 +1,61 @@
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Copying one minute of CD-quality PCM out of a WAV file: through an <code>AudioInputStream</code> into a 128 KB
+ * array as <code>WavPlayerThread</code> did, and from the memory-mapped file into 16 KB chunks as
+ * <code>AudioEngine</code> does.
+ */
+public class PcmCopyBenchmarks implements BenchmarkSuite {
+    private static final int SECONDS = 60;
+
+    @Override
+    public void register(BenchmarkRunner runner) throws Exception {
+        File file = createTestWav();
+        long bytes = PcmFile.readHeader(file).getDataLength();
+
+        byte[] streamBuffer = new byte[128000];
+        runner.add("pcm.audioInputStream.128k", bytes, () -> {
+            long total = 0;
+            try (AudioInputStream stream = AudioSystem.getAudioInputStream(file)) {
+                int read;
+                while ((read = stream.read(streamBuffer, 0, streamBuffer.length)) > 0)
+                    total += read;
+            }
+            return total;
+        });
+
+        byte[] chunk = new byte[16 * 1024];
+        runner.add("pcm.mapped.16k", bytes, () -> {
+            long total = 0;
+            try (PcmFile pcmFile = PcmFile.open(file)) {
+                ByteBuffer data = pcmFile.getData();
+                while (data.hasRemaining()) {
+                    int read = Math.min(chunk.length, data.remaining());
+                    data.get(chunk, 0, read);
+                    total += read;
+                }
+            }
+            return total;
+        });
+    }
+
+    private static File createTestWav() throws IOException {
+        AudioFormat format = new AudioFormat(44100, 16, 2, true, false);
+        int frames = 44100 * SECONDS;
+        byte[] samples = new byte[frames * format.getFrameSize()];
+        for (int i = 0; i < samples.length; i++)
+            samples[i] = (byte) (i * 31);
+        File file = File.createTempFile("benchmark-track", ".wav");
+        file.deleteOnExit();
+        AudioSystem.write(new AudioInputStream(new ByteArrayInputStream(samples), format, frames),
+                AudioFileFormat.Type.WAVE, file);
+        return file;
+    }
+}
@@ -0,0 +1,40 @@
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Saving and loading a presentation of 10,000 slides through <code>FileSave</code> and <code>FileLoad</code>.
+ */
+public class PresentationFileBenchmarks implements BenchmarkSuite {
+    private static final int SLIDES = 10_000;
+
+    @Override
+    public void register(BenchmarkRunner runner) throws Exception {
+        SlidesConfig slidesConfig = createConfig();
+        File file = File.createTempFile("benchmark-presentation", ".xml");
+        file.deleteOnExit();
+        save(slidesConfig, file);
+
+        runner.add("presentation.save." + SLIDES, file.length(), () -> save(slidesConfig, file));
+        runner.add("presentation.load." + SLIDES, file.length(), () -> new FileLoad(file).getSlidesConfig());
+    }
+
+    private static File save(SlidesConfig slidesConfig, File file) throws Exception {
+        FileSave fileSave = new FileSave();
+        fileSave.addFile(slidesConfig);
+        if (!fileSave.printFile(file.getAbsolutePath()))
+            throw new IOException("Cannot save " + file);
+        return file;
+    }
+
+    private static SlidesConfig createConfig() {
+        String[] slides = new String[SLIDES];
+        SlideEffect[] effects = new SlideEffect[SLIDES];
+        String[] names = TransitionRenderers.getNames().toArray(new String[0]);
+        for (int i = 0; i < SLIDES; i++) {
+            slides[i] = "/home/kiosk/slides/event/IMG_" + (10000 + i) + ".jpg";
+            effects[i] = new SlideEffect(names[i % names.length], 1 + i % 3);
+        }
+        String[] sounds = {"/home/kiosk/audio/track1.wav", "/home/kiosk/audio/track2.wav"};
+        return new SlidesConfig("/home/kiosk/slides/event", slides, effects, sounds, false, 5);
+    }
+}
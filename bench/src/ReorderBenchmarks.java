@@ -0,0 +1,128 @@
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Latency of editing the lists of the configuration view, for lists of increasing size, including the layout and
+ * painting of what is visible.
+ *
+ * The slide list is the <code>SlideComponent</code> drawn by a <code>ThumbnailStrip</code>: moving the selected slide
+ * one step, and adding then removing a slide at the end, are timed together with painting the viewport. The audio
+ * track list still adds one <code>SelectableElement</code> component per track, so moving a track is timed on that
+ * path, with the layout of the component panel.
+ */
+public class ReorderBenchmarks implements BenchmarkSuite {
+    private static final int[] SIZES = {100, 1_000, 5_000};
+    private static final int VIEWPORT_WIDTH = 800;
+    private static final int VIEWPORT_HEIGHT = 80;
+
+    @Override
+    public void register(BenchmarkRunner runner) throws IOException {
+        File folder = Files.createTempDirectory("reorder-bench").toFile();
+        folder.deleteOnExit();
+        String slide = createImage(folder, "slide.jpg");
+        String added = createImage(folder, "added.jpg");
+
+        for (int size : SIZES) {
+            JButton beforeButton = new JButton();
+            JButton afterButton = new JButton();
+            JPanel flowPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+            JScrollPane scrollPane = new JScrollPane(flowPanel);
+            scrollPane.setSize(VIEWPORT_WIDTH, VIEWPORT_HEIGHT);
+            SlidesConfigView.SlideComponent slides = new SlidesConfigView.SlideComponent(flowPanel, new JButton(),
+                    beforeButton, afterButton, new JButton(), new JButton(), new JButton());
+            List<String> data = new ArrayList<>();
+            for (int i = 0; i < size; i++)
+                data.add(slide);
+            slides.addElements(data);
+            slides.getElements().get(size / 2).setSelected(true);
+            slides.onElementSelectedChanged(true, size / 2);
+            ThumbnailStrip strip = (ThumbnailStrip) scrollPane.getViewport().getView();
+            BufferedImage screen = new BufferedImage(VIEWPORT_WIDTH, VIEWPORT_HEIGHT, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2d = screen.createGraphics();
+            ActionEvent before = new ActionEvent(beforeButton, ActionEvent.ACTION_PERFORMED, "");
+            ActionEvent after = new ActionEvent(afterButton, ActionEvent.ACTION_PERFORMED, "");
+            List<String> addedData = List.of(added);
+
+            // Every operation undoes itself, so the list does not drift. The scroll pane has no peer when headless,
+            // so it is laid out directly rather than validated, and the strip paints the visible tiles only.
+            runner.add("reorder.slides.move." + size, () -> {
+                slides.actionPerformed(after);
+                paint(scrollPane, strip, g2d);
+                slides.actionPerformed(before);
+                paint(scrollPane, strip, g2d);
+                return screen;
+            });
+            runner.add("reorder.slides.addRemove." + size, () -> {
+                slides.addElements(addedData);
+                paint(scrollPane, strip, g2d);
+                slides.removeElements(addedData);
+                paint(scrollPane, strip, g2d);
+                return screen;
+            });
+        }
+
+        for (int size : SIZES) {
+            JButton beforeButton = new JButton();
+            JButton afterButton = new JButton();
+            JPanel flowPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+            ElementList list = new ElementList(flowPanel, beforeButton, afterButton, size);
+            ActionEvent before = new ActionEvent(beforeButton, ActionEvent.ACTION_PERFORMED, "");
+            ActionEvent after = new ActionEvent(afterButton, ActionEvent.ACTION_PERFORMED, "");
+
+            runner.add("reorder.tracks.move." + size, () -> {
+                list.actionPerformed(after);
+                flowPanel.doLayout();
+                list.actionPerformed(before);
+                flowPanel.doLayout();
+                return list;
+            });
+        }
+    }
+
+    private static void paint(JScrollPane scrollPane, ThumbnailStrip strip, Graphics2D g2d) {
+        scrollPane.doLayout();
+        scrollPane.getViewport().doLayout();
+        Rectangle visible = strip.getVisibleRect();
+        Graphics g = g2d.create(-visible.x, -visible.y, visible.x + visible.width, visible.y + visible.height);
+        g.setClip(visible);
+        strip.paint(g);
+        g.dispose();
+    }
+
+    private static String createImage(File folder, String name) throws IOException {
+        BufferedImage image = new BufferedImage(200, 150, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setPaint(new GradientPaint(0, 0, Color.ORANGE, 200, 150, Color.WHITE));
+        g2d.fillRect(0, 0, 200, 150);
+        g2d.dispose();
+        File file = new File(folder, name);
+        ImageIO.write(image, "jpeg", file);
+        file.deleteOnExit();
+        return file.getPath();
+    }
+
+    /**
+     * Reorderable list of plain elements, as the audio track list, with the middle one selected.
+     */
+    private static class ElementList extends ReorderableElementPanel<SelectableElement> {
+        private ElementList(JPanel flowPanel, JButton beforeButton, JButton afterButton, int size) {
+            super(flowPanel, null, beforeButton, afterButton, null, new JButton());
+            for (int i = 0; i < size; i++) {
+                SelectableElement element = new SelectableElement(i, "slide" + i, this);
+                element.setPreferredSize(new Dimension(50, 50));
+                elements.add(element);
+            }
+            resetFlowPanelWithList();
+            elements.get(size / 2).setSelected(true);
+            onElementSelectedChanged(true, size / 2);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Load test of <code>SlideStreamServer</code>. Streams a generated presentation, with a transition every two
+ * seconds, to a number of local viewers, and reports the encode throughput of the server and the frame rate and
+ * latency seen by each viewer. Latency is measured from the moment a frame is published to the moment a viewer has
+ * read all of it.
+ *
+ * Usage: <code>StreamLoadTest [--clients n] [--seconds n] [--fps n] [--size WxH]</code>
+ */
+public class StreamLoadTest {
+    private static final int SLIDES = 6;
+    private static final int SLIDE_SECONDS = 2;
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        int clients = 50;
+        int seconds = 20;
+        int fps = 30;
+        int width = 1280;
+        int height = 720;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--clients":
+                    clients = Integer.parseInt(args[++i]);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(args[++i]);
+                    break;
+                case "--fps":
+                    fps = Integer.parseInt(args[++i]);
+                    break;
+                case "--size":
+                    String[] size = args[++i].split("x");
+                    width = Integer.parseInt(size[0]);
+                    height = Integer.parseInt(size[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        SlidesConfig slidesConfig = createPresentation(width, height);
+        try (SlideStreamServer server = new SlideStreamServer(slidesConfig, width, height, fps, 0)) {
+            server.start();
+            URL url = new URL("http://localhost:" + server.getPort() + "/stream");
+            LatencyHistogram all = new LatencyHistogram();
+            List<Viewer> viewers = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                Viewer viewer = new Viewer(url, all);
+                viewers.add(viewer);
+                viewer.start();
+            }
+            // The first second connects the viewers and decodes the slides; it is not measured.
+            Thread.sleep(1000);
+            long encodedBefore = server.getFramesEncoded();
+            long publishedBefore = server.getFramesPublished();
+            viewers.forEach(Viewer::startMeasuring);
+            long start = System.nanoTime();
+            Thread.sleep(seconds * 1000L);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            viewers.forEach(Viewer::stopMeasuring);
+
+            System.out.printf("%d viewers, %dx%d at %d fps, %.1f s%n", clients, width, height, fps, elapsed);
+            System.out.printf("server: %.1f frames/s published, %.1f frames/s encoded, encode p50 %.1f ms, p99 %.1f ms,"
+                            + " max %.1f ms%n",
+                    (server.getFramesPublished() - publishedBefore) / elapsed,
+                    (server.getFramesEncoded() - encodedBefore) / elapsed,
+                    server.getEncodeLatency().getPercentileMillis(50),
+                    server.getEncodeLatency().getPercentileMillis(99), server.getEncodeLatency().getMaxMillis());
+
+            double minFps = Double.MAX_VALUE;
+            double worstP99 = 0;
+            for (Viewer viewer : viewers) {
+                minFps = Math.min(minFps, viewer.frames / elapsed);
+                worstP99 = Math.max(worstP99, viewer.latency.getPercentileMillis(99));
+            }
+            System.out.printf("viewers: min %.1f frames/s, latency p50 %.1f ms, p99 %.1f ms, max %.1f ms,"
+                            + " worst viewer p99 %.1f ms%n",
+                    minFps, all.getPercentileMillis(50), all.getPercentileMillis(99), all.getMaxMillis(), worstP99);
+            System.out.println("latency histogram: " + all);
+        }
+    }
+
+    /**
+     * Writes gradient slides to a temporary folder and returns a presentation showing them with every effect.
+     */
+    private static SlidesConfig createPresentation(int width, int height) throws IOException {
+        File folder = Files.createTempDirectory("stream-load").toFile();
+        folder.deleteOnExit();
+        String[] files = new String[SLIDES];
+        SlideEffect[] effects = new SlideEffect[SLIDES];
+        String[] names = TransitionRenderers.getNames().toArray(new String[0]);
+        for (int i = 0; i < SLIDES; i++) {
+            BufferedImage slide = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2d = slide.createGraphics();
+            g2d.setPaint(new GradientPaint(0, 0, Color.getHSBColor(1f * i / SLIDES, 0.8f, 0.9f), width, height,
+                    Color.WHITE));
+            g2d.fillRect(0, 0, width, height);
+            g2d.dispose();
+            File file = new File(folder, "slide" + i + ".jpg");
+            ImageIO.write(slide, "jpeg", file);
+            file.deleteOnExit();
+            files[i] = file.getPath();
+            effects[i] = new SlideEffect(names[i % names.length], 1);
+        }
+        return new SlidesConfig(folder.getPath(), files, effects, null, false, SLIDE_SECONDS);
+    }
+
+    /**
+     * Local viewer reading the stream on a thread of its own.
+     */
+    private static class Viewer extends Thread {
+        private final URL url;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram all;
+        private volatile boolean measuring;
+        private volatile boolean stopped;
+        private volatile long frames;
+
+        private Viewer(URL url, LatencyHistogram all) {
+            super("stream-viewer");
+            setDaemon(true);
+            this.url = url;
+            this.all = all;
+        }
+
+        private void startMeasuring() {
+            measuring = true;
+        }
+
+        private void stopMeasuring() {
+            measuring = false;
+            stopped = true;
+        }
+
+        @Override
+        public void run() {
+            byte[] buffer = new byte[1024 * 1024];
+            try (InputStream in = new BufferedInputStream(url.openStream(), 64 * 1024)) {
+                while (!stopped) {
+                    int length = -1;
+                    long published = 0;
+                    String line;
+                    while (!(line = readLine(in)).isEmpty()) {
+                        if (line.startsWith("Content-Length:"))
+                            length = Integer.parseInt(line.substring(15).trim());
+                        else if (line.startsWith("X-Frame-Nanos:"))
+                            published = Long.parseLong(line.substring(14).trim());
+                    }
+                    if (length < 0)
+                        continue;
+                    if (length > buffer.length)
+                        buffer = new byte[length];
+                    for (int read = 0; read < length; ) {
+                        int n = in.read(buffer, read, length - read);
+                        if (n < 0)
+                            return;
+                        read += n;
+                    }
+                    long received = System.nanoTime();
+                    readLine(in);
+                    if (measuring) {
+                        frames++;
+                        latency.record(received - published);
+                        all.record(received - published);
+                    }
+                }
+            } catch (IOException e) {
+                if (!stopped)
+                    e.printStackTrace();
+            }
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int c;
+            while ((c = in.read()) != '\n') {
+                if (c < 0)
+                    throw new IOException("Stream closed");
+                if (c != '\r')
+                    line.write(c);
+            }
+            return line.toString(StandardCharsets.US_ASCII);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Allocation regression check of the transition renderers. Each effect is warmed up, then renders a number of frames
+ * into a reused destination while the bytes allocated by the thread are counted. Transitions run at the frame rate
+ * for seconds at a time, so a renderer is expected to allocate nothing per frame; the check fails, with a non-zero
+ * exit status, if any effect allocates more than a few kilobytes over all its frames.
+ *
+ * Usage: <code>TransitionAllocationCheck [--frames n] [--max-bytes n]</code>
+ */
+public class TransitionAllocationCheck {
+    private static final int[][] RESOLUTIONS = {{600, 400}, {1920, 1080}};
+    private static final int WARMUP_FRAMES = 2000;
+    private static final int TRANSITION_FRAMES = 60;
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        int frames = 600;
+        long maxBytes = 16 * 1024;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--frames":
+                    frames = Integer.parseInt(args[++i]);
+                    break;
+                case "--max-bytes":
+                    maxBytes = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            System.err.println("Thread allocation counting is not supported by this JVM");
+            System.exit(2);
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        boolean failed = false;
+        for (int[] resolution : RESOLUTIONS) {
+            int width = resolution[0];
+            int height = resolution[1];
+            BufferedImage source = createSlide(width, height, Color.RED);
+            BufferedImage target = createSlide(width, height, Color.BLUE);
+            BufferedImage frame = ImageScaler.createCompatibleImage(width, height);
+            Graphics2D g2d = frame.createGraphics();
+            // Every effect is compiled before any is measured; the drawing code they share would otherwise still be
+            // interpreted while the first one is counted.
+            for (String name : TransitionRenderers.getNames())
+                render(TransitionRenderers.get(name), source, target, g2d, width, height, WARMUP_FRAMES);
+            for (String name : TransitionRenderers.getNames()) {
+                TransitionRenderer renderer = TransitionRenderers.get(name);
+                long before = threads.getThreadAllocatedBytes(thread);
+                render(renderer, source, target, g2d, width, height, frames);
+                long allocated = threads.getThreadAllocatedBytes(thread) - before;
+                boolean passed = allocated <= maxBytes;
+                failed |= !passed;
+                System.out.printf("%-40s %10d bytes over %d frames %s%n", "transition." + name + "." + width + "x"
+                        + height, allocated, frames, passed ? "ok" : "FAILED");
+            }
+            g2d.dispose();
+        }
+        if (failed) {
+            System.err.println("Transition renderers allocate more than " + maxBytes + " bytes per " + frames
+                    + " frames");
+            System.exit(1);
+        }
+    }
+
+    private static void render(TransitionRenderer renderer, BufferedImage source, BufferedImage target,
+                               Graphics2D g2d, int width, int height, int frames) {
+        for (int i = 0; i < frames; i++) {
+            double progress = (double) (i % TRANSITION_FRAMES + 1) / TRANSITION_FRAMES;
+            renderer.render(source, target, progress, g2d, 0, 0, width, height);
+        }
+    }
+
+    private static BufferedImage createSlide(int width, int height, Color color) {
+        BufferedImage slide = ImageScaler.createCompatibleImage(width, height);
+        Graphics2D g2d = slide.createGraphics();
+        g2d.setPaint(new GradientPaint(0, 0, color, width, height, Color.WHITE));
+        g2d.fillRect(0, 0, width, height);
+        g2d.dispose();
+        return slide;
+    }
+}
@@ -0,0 +1,44 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * One frame of each transition effect, painted by <code>SlideSurface</code> at several output resolutions. At 60 Hz
+ * a frame has to stay well under 16.7 ms.
+ */
+public class TransitionBenchmarks implements BenchmarkSuite {
+    private static final int[][] RESOLUTIONS = {{600, 400}, {1280, 720}, {1920, 1080}};
+    private static final int FRAMES = 60;
+
+    @Override
+    public void register(BenchmarkRunner runner) {
+        for (int[] resolution : RESOLUTIONS) {
+            int width = resolution[0];
+            int height = resolution[1];
+            for (String name : TransitionRenderers.getNames()) {
+                SlideSurface surface = new SlideSurface();
+                surface.setSize(width, height);
+                surface.setImage(createSlide(width, height, Color.RED));
+                surface.setNextImage(createSlide(width, height, Color.BLUE));
+                surface.setNextAnimation(new SlideEffect(name, 1));
+                BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g2d = frame.createGraphics();
+                int[] step = {0};
+                runner.add("transition." + name + "." + width + "x" + height, () -> {
+                    step[0] = step[0] % FRAMES + 1;
+                    surface.setAnimationRatio((double) step[0] / FRAMES);
+                    surface.paint(g2d);
+                    return frame;
+                });
+            }
+        }
+    }
+
+    private static BufferedImage createSlide(int width, int height, Color color) {
+        BufferedImage slide = ImageScaler.createCompatibleImage(width, height);
+        Graphics2D g2d = slide.createGraphics();
+        g2d.setPaint(new GradientPaint(0, 0, color, width, height, Color.WHITE));
+        g2d.fillRect(0, 0, width, height);
+        g2d.dispose();
+        return slide;
+    }
+}
@@ -0,0 +1,683 @@
+import javax.sound.sampled.*;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Plays the soundtrack of a presentation through one long-lived output line. A decode thread mixes the tracks into
+ * two buffers, which an output thread writes to the line in turn. Pausing stops the line where it is, and resuming
+ * continues from the same sample. Uncompressed WAV and AIFF tracks are played from memory-mapped files; other formats
+ * are decoded through <code>AudioSystem</code>.
+ *
+ * Every track is converted once, as it is decoded, to stereo float samples at the rate of the first track, so tracks
+ * of any format share the line. The end of each track is crossfaded into the start of the next one, which is opened
+ * and decoded ahead while the current track plays.
+ */
+public class AudioEngine {
+    private static final int BUFFER_BYTES = 16 * 1024;
+    private static final int BUFFERS = 2;
+    private static final int OUTPUT_CHANNELS = 2;
+    private static final int OUTPUT_FRAME_BYTES = 4;
+    private static final float DEFAULT_SAMPLE_RATE = 44100;
+    private static final int BLOCK_FRAMES = BUFFER_BYTES / OUTPUT_FRAME_BYTES;
+
+    private final String[] soundFiles;
+    private final PcmFile[] mappedFiles;
+    private final boolean[] unmappable;
+    private final BlockingQueue<Chunk> freeChunks;
+    private final BlockingQueue<Chunk> filledChunks;
+    private final Thread decodeThread;
+    private final Thread outputThread;
+    private final Object pauseLock;
+
+    private volatile boolean stopped;
+    private volatile boolean paused;
+    private volatile SourceDataLine line;
+    private volatile long underruns;
+    private int crossfadeMillis = Integer.getInteger("slidesPlayer.crossfadeMs", 2000);
+
+    /**
+     * Constructor. Initializes the private variables.
+     *
+     * @param soundFiles paths of the tracks, played in order and looped
+     */
+    public AudioEngine(String[] soundFiles) {
+        this.soundFiles = soundFiles.clone();
+        this.mappedFiles = new PcmFile[soundFiles.length];
+        this.unmappable = new boolean[soundFiles.length];
+        this.freeChunks = new ArrayBlockingQueue<>(BUFFERS);
+        this.filledChunks = new ArrayBlockingQueue<>(BUFFERS);
+        for (int i = 0; i < BUFFERS; i++)
+            freeChunks.add(new Chunk());
+        this.pauseLock = new Object();
+        this.decodeThread = new Thread(this::decode, "audio-decode");
+        this.outputThread = new Thread(this::output, "audio-output");
+        decodeThread.setDaemon(true);
+        outputThread.setDaemon(true);
+        outputThread.setPriority(Thread.MAX_PRIORITY);
+    }
+
+    /**
+     * Public setter for private variable. Takes effect when playback starts.
+     *
+     * @param crossfadeMillis overlap between the end of a track and the start of the next one; 0 plays the tracks
+     *                        back to back
+     */
+    public void setCrossfadeMillis(int crossfadeMillis) {
+        this.crossfadeMillis = Math.max(0, crossfadeMillis);
+    }
+
+    /**
+     * Starts the decode and output threads.
+     */
+    public void start() {
+        if (soundFiles.length == 0)
+            return;
+        decodeThread.start();
+        outputThread.start();
+    }
+
+    /**
+     * Stops playback and releases the output line.
+     */
+    public void stop() {
+        stopped = true;
+        decodeThread.interrupt();
+        outputThread.interrupt();
+        synchronized (pauseLock) {
+            pauseLock.notifyAll();
+        }
+        SourceDataLine current = line;
+        if (current != null) {
+            current.stop();
+            current.flush();
+            current.close();
+        }
+    }
+
+    /**
+     * Pauses or resumes playback. The line is stopped immediately, keeping the samples it still holds.
+     *
+     * @param paused true to pause; false to resume
+     */
+    public void setPaused(boolean paused) {
+        synchronized (pauseLock) {
+            this.paused = paused;
+            SourceDataLine current = line;
+            if (current != null) {
+                if (paused)
+                    current.stop();
+                else
+                    current.start();
+            }
+            pauseLock.notifyAll();
+        }
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Public getter for the number of times the output line ran dry while playing.
+     *
+     * @return the number of underruns
+     */
+    public long getUnderruns() {
+        return underruns;
+    }
+
+    /**
+     * Returns how full the buffer of the output line is.
+     *
+     * @return the fill ratio, between 0 and 1
+     */
+    public double getBufferFill() {
+        SourceDataLine current = line;
+        if (current == null || !current.isOpen())
+            return 0;
+        return 1.0 - (double) current.available() / current.getBufferSize();
+    }
+
+    /**
+     * Decode thread. Mixes the tracks into free chunks.
+     */
+    private void decode() {
+        Mixer mixer = new Mixer();
+        try {
+            mixer.run();
+        } catch (InterruptedException e) {
+            // Stopped.
+        } finally {
+            mixer.close();
+            for (PcmFile mappedFile : mappedFiles)
+                close(mappedFile);
+        }
+    }
+
+    /**
+     * Output thread. Writes the mixed chunks to the line, opened for the common format of the mix.
+     */
+    private void output() {
+        boolean playing = false;
+        AudioFormat failedFormat = null;
+        try {
+            while (!stopped) {
+                Chunk chunk = filledChunks.take();
+                SourceDataLine current;
+                synchronized (pauseLock) {
+                    while (paused && !stopped)
+                        pauseLock.wait();
+                    if (stopped)
+                        return;
+                    if (line == null || !line.getFormat().matches(chunk.format)) {
+                        if (failedFormat == null || !failedFormat.matches(chunk.format))
+                            failedFormat = openLine(chunk.format) ? null : chunk.format;
+                        playing = false;
+                    }
+                    current = line != null && line.getFormat().matches(chunk.format) ? line : null;
+                }
+                if (current == null) {
+                    // No line for this format; its chunks are skipped.
+                    freeChunks.put(chunk);
+                    continue;
+                }
+                if (playing && !paused && current.available() >= current.getBufferSize())
+                    underruns++;
+                current.write(chunk.data, 0, chunk.length);
+                playing = true;
+                freeChunks.put(chunk);
+            }
+        } catch (InterruptedException e) {
+            // Stopped.
+        }
+    }
+
+    /**
+     * Replaces the output line with one for the given format, after playing out what the old line still holds.
+     *
+     * @param format format of the following chunks
+     * @return true if the line was opened; false otherwise
+     */
+    private boolean openLine(AudioFormat format) {
+        if (line != null) {
+            line.drain();
+            line.close();
+            line = null;
+        }
+        try {
+            SourceDataLine newLine = (SourceDataLine) AudioSystem.getLine(new DataLine.Info(SourceDataLine.class, format));
+            newLine.open(format);
+            newLine.start();
+            line = newLine;
+            return true;
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Opens the track, from its memory-mapped samples when it is uncompressed WAV or AIFF. A mapped file is kept
+     * for the whole playback, so playing the track again needs neither a new file handle nor a seek.
+     *
+     * @param track index of the track, wrapping around the playlist
+     * @return the opened track, or null if it cannot be played
+     */
+    private Track open(int track) {
+        int index = track % soundFiles.length;
+        File file = new File(soundFiles[index]);
+        if (!unmappable[index] && mappedFiles[index] == null) {
+            try {
+                mappedFiles[index] = PcmFile.open(file);
+            } catch (UnsupportedAudioFileException | IOException | IllegalArgumentException e) {
+                unmappable[index] = true;
+            }
+        }
+        if (mappedFiles[index] != null)
+            return new MappedTrack(mappedFiles[index]);
+        try {
+            AudioInputStream stream = AudioSystem.getAudioInputStream(file);
+            AudioFormat.Encoding encoding = stream.getFormat().getEncoding();
+            if (!encoding.equals(AudioFormat.Encoding.PCM_SIGNED) && !encoding.equals(AudioFormat.Encoding.PCM_UNSIGNED)
+                    && !encoding.equals(AudioFormat.Encoding.PCM_FLOAT))
+                stream = AudioSystem.getAudioInputStream(AudioFormat.Encoding.PCM_SIGNED, stream);
+            return new StreamTrack(stream);
+        } catch (UnsupportedAudioFileException | IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable == null)
+            return;
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static int alignedLength(AudioFormat format) {
+        int frameSize = Math.max(1, format.getFrameSize());
+        return BUFFER_BYTES / frameSize * frameSize;
+    }
+
+    /**
+     * Source of the samples of one track.
+     */
+    private interface Track extends Closeable {
+        AudioFormat getFormat();
+
+        /**
+         * Fills the buffer as far as the track allows, so chunks only come out short at the end of a track.
+         *
+         * @param buffer buffer to fill
+         * @param length number of bytes wanted
+         * @return the number of bytes read, or -1 at the end of the track
+         */
+        int read(byte[] buffer, int length);
+    }
+
+    /**
+     * Track played from the memory-mapped samples of a WAV or AIFF file.
+     */
+    private static class MappedTrack implements Track {
+        private final AudioFormat format;
+        private final ByteBuffer data;
+
+        private MappedTrack(PcmFile pcmFile) {
+            this.format = pcmFile.getHeader().getFormat();
+            this.data = pcmFile.getData();
+        }
+
+        @Override
+        public AudioFormat getFormat() {
+            return format;
+        }
+
+        @Override
+        public int read(byte[] buffer, int length) {
+            int read = Math.min(length, data.remaining());
+            if (read == 0)
+                return -1;
+            data.get(buffer, 0, read);
+            return read;
+        }
+
+        @Override
+        public void close() {
+            // The mapping belongs to the engine and is released when playback stops.
+        }
+    }
+
+    /**
+     * Track decoded through <code>AudioSystem</code>, for formats that cannot be mapped.
+     */
+    private static class StreamTrack implements Track {
+        private final AudioInputStream stream;
+
+        private StreamTrack(AudioInputStream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public AudioFormat getFormat() {
+            return stream.getFormat();
+        }
+
+        @Override
+        public int read(byte[] buffer, int length) {
+            int total = 0;
+            try {
+                while (total < length) {
+                    int read = stream.read(buffer, total, length - total);
+                    if (read < 0)
+                        break;
+                    total += read;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return total == 0 ? -1 : total;
+        }
+
+        @Override
+        public void close() throws IOException {
+            stream.close();
+        }
+    }
+
+    /**
+     * Mixing state of the decode thread. The current track is decoded into a ring that runs one crossfade ahead of
+     * the output, so when the track ends, its last samples are still there to be faded out. Meanwhile the start of
+     * the next track is decoded, a block at a time, into the buffer it is faded in from. All buffers are allocated
+     * once, when playback starts.
+     */
+    private class Mixer implements Closeable {
+        private final AudioFormat outputFormat;
+        private final int crossfadeFrames;
+        private final float[] fadeOut;
+        private final float[] fadeIn;
+        private final float[] ring;
+        private final int capacity;
+        private int head;
+        private int count;
+        private final float[] nextHead;
+        private int nextHeadFrames;
+        private boolean nextHeadEnded;
+
+        private TrackReader current;
+        private TrackReader next;
+        private int track;
+        private int nextTrack;
+        private boolean currentEnded;
+        private boolean currentPlayed;
+        private int silentTracks;
+        private Chunk chunk;
+
+        private Mixer() {
+            current = openFrom(0);
+            track = nextTrack;
+            float sampleRate = current != null ? current.getSampleRate() : DEFAULT_SAMPLE_RATE;
+            this.outputFormat = new AudioFormat(sampleRate, 16, OUTPUT_CHANNELS, true, false);
+            if (current != null)
+                current.setOutputRate(sampleRate);
+            next = openFrom(track + 1);
+
+            this.crossfadeFrames = (int) (sampleRate * crossfadeMillis / 1000);
+            // Equal-power curves, so the loudness does not dip in the middle of the crossfade.
+            this.fadeOut = new float[crossfadeFrames];
+            this.fadeIn = new float[crossfadeFrames];
+            for (int i = 0; i < crossfadeFrames; i++) {
+                double angle = Math.PI / 2 * i / crossfadeFrames;
+                fadeOut[i] = (float) Math.cos(angle);
+                fadeIn[i] = (float) Math.sin(angle);
+            }
+            this.capacity = crossfadeFrames + BLOCK_FRAMES;
+            this.ring = new float[capacity * OUTPUT_CHANNELS];
+            this.nextHead = new float[crossfadeFrames * OUTPUT_CHANNELS];
+        }
+
+        /**
+         * Opens the first playable track, starting at the given one and trying each track of the playlist once.
+         *
+         * @return the reader of the track, whose index is left in <code>nextTrack</code>, or null if no track plays
+         */
+        private TrackReader openFrom(int first) {
+            for (int i = 0; i < soundFiles.length; i++) {
+                Track opened = open(first + i);
+                if (opened != null) {
+                    nextTrack = (first + i) % soundFiles.length;
+                    TrackReader reader = new TrackReader(opened);
+                    if (outputFormat != null)
+                        reader.setOutputRate(outputFormat.getSampleRate());
+                    return reader;
+                }
+            }
+            return null;
+        }
+
+        private void run() throws InterruptedException {
+            while (!stopped && current != null) {
+                if (!currentEnded && count < capacity) {
+                    fill();
+                } else if (!currentEnded) {
+                    emit(BLOCK_FRAMES);
+                    decodeNextHead(Math.min(crossfadeFrames, nextHeadFrames + BLOCK_FRAMES));
+                } else {
+                    crossfade();
+                }
+            }
+            if (chunk != null && chunk.length > 0 && !stopped) {
+                filledChunks.put(chunk);
+                chunk = null;
+            }
+        }
+
+        /**
+         * Decodes the current track into the free part of the ring.
+         */
+        private void fill() {
+            int tail = (head + count) % capacity;
+            int read = current.read(ring, tail, Math.min(capacity - count, capacity - tail));
+            if (read < 0) {
+                currentEnded = true;
+            } else {
+                count += read;
+                currentPlayed |= read > 0;
+            }
+        }
+
+        /**
+         * Decodes the start of the next track ahead, up to the given number of frames.
+         */
+        private void decodeNextHead(int frames) {
+            while (next != null && !nextHeadEnded && nextHeadFrames < frames) {
+                int read = next.read(nextHead, nextHeadFrames, frames - nextHeadFrames);
+                if (read < 0)
+                    nextHeadEnded = true;
+                else
+                    nextHeadFrames += read;
+            }
+        }
+
+        /**
+         * Plays out the current track, which has ended, fading its last frames into the start of the next track,
+         * and makes the next track the current one.
+         */
+        private void crossfade() throws InterruptedException {
+            int fade = next != null ? Math.min(count, crossfadeFrames) : 0;
+            emit(count - fade);
+            decodeNextHead(fade);
+            int faded = Math.min(fade, nextHeadFrames);
+            for (int i = 0; i < fade; i++) {
+                // A track shorter than the crossfade gets a shorter one.
+                int gain = (int) ((long) i * crossfadeFrames / fade);
+                int sample = (head + i) % capacity * OUTPUT_CHANNELS;
+                for (int channel = 0; channel < OUTPUT_CHANNELS; channel++) {
+                    float mixed = ring[sample + channel] * fadeOut[gain];
+                    if (i < faded)
+                        mixed += nextHead[i * OUTPUT_CHANNELS + channel] * fadeIn[gain];
+                    ring[sample + channel] = mixed;
+                }
+            }
+            emit(fade);
+
+            // A playlist of tracks without samples would otherwise spin.
+            silentTracks = currentPlayed || faded > 0 ? 0 : silentTracks + 1;
+            current.close();
+            current = silentTracks < soundFiles.length ? next : null;
+            if (current == null)
+                AudioEngine.close(next);
+            track = nextTrack;
+            head = 0;
+            count = nextHeadFrames - faded;
+            System.arraycopy(nextHead, faded * OUTPUT_CHANNELS, ring, 0, count * OUTPUT_CHANNELS);
+            currentEnded = nextHeadEnded;
+            currentPlayed = faded > 0 || count > 0;
+            nextHeadFrames = 0;
+            nextHeadEnded = false;
+            next = current != null ? openFrom(track + 1) : null;
+        }
+
+        /**
+         * Moves frames from the ring to the output chunks, as 16-bit samples.
+         */
+        private void emit(int frames) throws InterruptedException {
+            for (int i = 0; i < frames; i++) {
+                if (chunk == null) {
+                    chunk = freeChunks.take();
+                    chunk.format = outputFormat;
+                    chunk.length = 0;
+                }
+                int sample = head * OUTPUT_CHANNELS;
+                for (int channel = 0; channel < OUTPUT_CHANNELS; channel++) {
+                    float value = Math.max(-1f, Math.min(1f, ring[sample + channel]));
+                    int pcm = (int) (value * 32767);
+                    chunk.data[chunk.length++] = (byte) pcm;
+                    chunk.data[chunk.length++] = (byte) (pcm >> 8);
+                }
+                head = (head + 1) % capacity;
+                count--;
+                if (chunk.length == chunk.data.length) {
+                    filledChunks.put(chunk);
+                    chunk = null;
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            AudioEngine.close(current);
+            AudioEngine.close(next);
+        }
+    }
+
+    /**
+     * Converts the samples of a track to stereo floats at the output rate, in buffers allocated once. Mono tracks
+     * are played on both channels and channels past the second are dropped; other rates are resampled linearly.
+     */
+    private static class TrackReader implements Closeable {
+        private final Track track;
+        private final AudioFormat.Encoding encoding;
+        private final int channels;
+        private final int sampleBytes;
+        private final int frameSize;
+        private final boolean bigEndian;
+        private final float sampleRate;
+        private final byte[] bytes;
+        private final float[] samples;
+        private int sampleFrames;
+        private double step = 1;
+        private double position;
+        private boolean ended;
+
+        private TrackReader(Track track) {
+            AudioFormat format = track.getFormat();
+            this.track = track;
+            this.encoding = format.getEncoding();
+            this.channels = Math.max(1, format.getChannels());
+            this.sampleBytes = (format.getSampleSizeInBits() + 7) / 8;
+            this.frameSize = format.getFrameSize() > 0 ? format.getFrameSize() : channels * sampleBytes;
+            this.bigEndian = format.isBigEndian();
+            this.sampleRate = format.getSampleRate();
+            this.bytes = new byte[BUFFER_BYTES / frameSize * frameSize];
+            this.samples = new float[(bytes.length / frameSize + 2) * OUTPUT_CHANNELS];
+        }
+
+        private float getSampleRate() {
+            return sampleRate;
+        }
+
+        private void setOutputRate(float outputRate) {
+            this.step = sampleRate / outputRate;
+        }
+
+        /**
+         * Reads converted frames.
+         *
+         * @param out    buffer of interleaved stereo frames
+         * @param offset index of the first frame to write
+         * @param frames number of frames wanted
+         * @return the number of frames read, or -1 at the end of the track
+         */
+        private int read(float[] out, int offset, int frames) {
+            int written = 0;
+            while (written < frames) {
+                int index = (int) position;
+                if (index + 1 >= sampleFrames) {
+                    if (!refill())
+                        break;
+                    continue;
+                }
+                float fraction = (float) (position - index);
+                int sample = index * OUTPUT_CHANNELS;
+                int target = (offset + written) * OUTPUT_CHANNELS;
+                for (int channel = 0; channel < OUTPUT_CHANNELS; channel++) {
+                    float value = samples[sample + channel];
+                    out[target + channel] = value + (samples[sample + OUTPUT_CHANNELS + channel] - value) * fraction;
+                }
+                written++;
+                position += step;
+            }
+            return written == 0 && ended ? -1 : written;
+        }
+
+        /**
+         * Converts the next bytes of the track, keeping the frames still needed for interpolation.
+         *
+         * @return false once the track is exhausted
+         */
+        private boolean refill() {
+            if (ended)
+                return false;
+            int consumed = Math.min((int) position, sampleFrames);
+            int kept = sampleFrames - consumed;
+            System.arraycopy(samples, consumed * OUTPUT_CHANNELS, samples, 0, kept * OUTPUT_CHANNELS);
+            position -= consumed;
+            sampleFrames = kept;
+
+            int length = track.read(bytes, bytes.length);
+            if (length <= 0) {
+                ended = true;
+                if (sampleFrames == 0)
+                    return false;
+                // The last frame is repeated, so the interpolation reaches it.
+                System.arraycopy(samples, (sampleFrames - 1) * OUTPUT_CHANNELS, samples, sampleFrames * OUTPUT_CHANNELS,
+                        OUTPUT_CHANNELS);
+                sampleFrames++;
+                return true;
+            }
+            for (int frame = 0; frame < length / frameSize; frame++) {
+                int source = frame * frameSize;
+                float left = sample(source);
+                float right = channels > 1 ? sample(source + sampleBytes) : left;
+                samples[sampleFrames * OUTPUT_CHANNELS] = left;
+                samples[sampleFrames * OUTPUT_CHANNELS + 1] = right;
+                sampleFrames++;
+            }
+            return true;
+        }
+
+        private float sample(int offset) {
+            if (encoding.equals(AudioFormat.Encoding.PCM_FLOAT)) {
+                if (sampleBytes == 8)
+                    return (float) Double.longBitsToDouble(bits(offset, 8));
+                return Float.intBitsToFloat((int) bits(offset, 4));
+            }
+            // Aligned to the top of an int, so every sample size has the same scale.
+            int value = (int) bits(offset, sampleBytes) << (32 - 8 * sampleBytes);
+            if (encoding.equals(AudioFormat.Encoding.PCM_UNSIGNED))
+                value ^= Integer.MIN_VALUE;
+            return value / 2147483648f;
+        }
+
+        private long bits(int offset, int length) {
+            long value = 0;
+            for (int i = 0; i < length; i++) {
+                int b = bytes[offset + (bigEndian ? i : length - 1 - i)] & 0xFF;
+                value = value << 8 | b;
+            }
+            return value;
+        }
+
+        @Override
+        public void close() {
+            AudioEngine.close(track);
+        }
+    }
+
+    /**
+     * Buffer handed from the decode thread to the output thread.
+     */
+    private static class Chunk {
+        private final byte[] data = new byte[BUFFER_BYTES];
+        private int length;
+        private AudioFormat format;
+    }
+}
@@ -0,0 +1,103 @@
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Reads the duration and format of audio files from their headers only, on a worker pool. Results are cached per
+ * file and modification time, so a playlist loaded again does not touch the files.
+ */
+public final class AudioMetadataService {
+    private static final ExecutorService workers = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "audio-metadata");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private static final Map<String, AudioMetadata> cache = new ConcurrentHashMap<>();
+
+    private AudioMetadataService() {
+    }
+
+    /**
+     * Queues the file for probing. Once its metadata is known, the consumer is called on the event thread.
+     *
+     * @param path       path of the audio file
+     * @param onProbed   receives the metadata on the event thread
+     * @return future of the metadata
+     */
+    public static Future<AudioMetadata> probe(String path, Consumer<AudioMetadata> onProbed) {
+        FutureTask<AudioMetadata> task = new FutureTask<AudioMetadata>(() -> getMetadata(new File(path))) {
+            @Override
+            protected void done() {
+                try {
+                    AudioMetadata metadata = get();
+                    SwingUtilities.invokeLater(() -> onProbed.accept(metadata));
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                } catch (InterruptedException | CancellationException e) {
+                    // Dropped.
+                }
+            }
+        };
+        workers.execute(task);
+        return task;
+    }
+
+    /**
+     * Returns the metadata of the file, from the cache if the file has not changed since it was probed.
+     *
+     * @param file audio file
+     * @return the metadata
+     * @throws UnsupportedAudioFileException if the format of the file is not supported
+     * @throws IOException                   if the file cannot be read
+     */
+    public static AudioMetadata getMetadata(File file) throws UnsupportedAudioFileException, IOException {
+        String key = file.getAbsolutePath();
+        long lastModified = file.lastModified();
+        AudioMetadata metadata = cache.get(key);
+        if (metadata != null && metadata.lastModified == lastModified)
+            return metadata;
+
+        AudioFormat format;
+        long frames;
+        try {
+            PcmFile.Header header = PcmFile.readHeader(file);
+            format = header.getFormat();
+            frames = header.getFrameLength();
+        } catch (UnsupportedAudioFileException e) {
+            // Not plain PCM, let the installed readers parse the header.
+            AudioFileFormat fileFormat = AudioSystem.getAudioFileFormat(file);
+            format = fileFormat.getFormat();
+            frames = fileFormat.getFrameLength();
+        }
+        double duration = frames == AudioSystem.NOT_SPECIFIED ? 0 : frames / format.getFrameRate();
+        metadata = new AudioMetadata(format, duration, lastModified);
+        cache.put(key, metadata);
+        return metadata;
+    }
+
+    /**
+     * Duration and format of an audio file.
+     */
+    public static class AudioMetadata {
+        private final AudioFormat format;
+        private final double durationSeconds;
+        private final long lastModified;
+
+        private AudioMetadata(AudioFormat format, double durationSeconds, long lastModified) {
+            this.format = format;
+            this.durationSeconds = durationSeconds;
+            this.lastModified = lastModified;
+        }
+
+        public AudioFormat getFormat() { return format; }
+        public double getDurationSeconds() { return durationSeconds; }
+    }
+}
@@ -1,120 +1,133 @@
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Opens a slideshow file and parses the information
  */
 public class FileLoad {
-    private Document doc;   // The document this file holds
+    private static final XMLInputFactory inputFactory = createInputFactory();
+
+    private SlidesConfig slidesConfig;   // The configuration read from the file, or null if the file is not valid
 
     /**
-     * Creates a file load object to parse the code from the file
+     * Creates a file load object and parses the file in a single streaming pass, validating it on the way
      *
      * @param file The file to be opened and read
-     * @throws ParserConfigurationException thrown by DocumentBuilderFactory object.newDocumentBuilder()
-     * @throws IOException                  thrown by DocumentBuilder object.parse(File f)
-     * @throws SAXException                 thrown by DocumentBuilder object.parse(File f)
+     * @throws IOException        thrown if the file cannot be read
+     * @throws XMLStreamException thrown if the file is not well-formed XML
      */
-    public FileLoad(File file) throws ParserConfigurationException, IOException, SAXException {
-        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-        DocumentBuilder db = dbf.newDocumentBuilder();
-        doc = db.parse(file);
+    public FileLoad(File file) throws IOException, XMLStreamException {
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+            slidesConfig = read(input);
+        }
     }
 
     /**
-     * Checks to see if the file opened is a valid slideshow file
+     * Creates a file load object from a presentation already opened as a stream, such as the one embedded in a
+     * slide bundle. The stream is not closed.
      *
-     * @return true if the file is valid; false otherwise
+     * @param input stream positioned at the start of the presentation document
+     * @throws XMLStreamException thrown if the document is not well-formed XML
      */
-    public boolean isValid() {
-        Element pres = doc.getDocumentElement();
-        if (!(pres.getTagName() == "presentation" && pres.hasAttribute("imageFolder") && pres.hasChildNodes()))
-            return false;
-        if (pres.getFirstChild().getNodeType() == Node.ELEMENT_NODE) {
-            Element sldMst = (Element) pres.getFirstChild();
-            if (sldMst.getTagName() != "slideMaster" || !sldMst.hasAttribute("timer"))
-                return false;
-            NodeList slideList = sldMst.getElementsByTagName("slide");
-            for (int i = 0; i < slideList.getLength(); i++) {
-                if (slideList.item(i).getNodeType() == Node.ELEMENT_NODE) {
-                    Element slide = (Element) slideList.item(i);
-                    if (!(slide.hasAttribute("id") && slide.hasAttribute("image") && slide.hasAttribute("effect") && slide.hasAttribute("effectTimer")))
-                        return false;
-                } else
-                    return false;
-            }
-            NodeList soundList = sldMst.getElementsByTagName("audio");
-            for (int i = 0; i < soundList.getLength(); i++) {
-                if (soundList.item(i).getNodeType() == Node.ELEMENT_NODE) {
-                    Element sound = (Element) soundList.item(i);
-                    if (!(sound.hasAttribute("id") && sound.hasAttribute("sound")))
-                        return false;
-                } else
-                    return false;
-            }
-        } else
-            return false;
+    public FileLoad(InputStream input) throws XMLStreamException {
+        slidesConfig = read(input);
+    }
 
-        return true;
+    private static SlidesConfig read(InputStream input) throws XMLStreamException {
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(input);
+        try {
+            return parse(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
     }
 
     /**
-     * Returns the configuration of the load file
-     * @return The SlideConfig object for this load file
+     * Reads the presentation element and everything in it
+     *
+     * @param reader reader positioned before the root element
+     * @return the configuration, or null if the file is not a valid slideshow file
      */
-    public SlidesConfig getSlidesConfig() {
-        String imgFld;
-        String[] images;
-        SlideEffect[] effects;
-        String[] sounds;
-        int timer;
-
-        if (!isValid())
+    private static SlidesConfig parse(XMLStreamReader reader) throws XMLStreamException {
+        if (reader.nextTag() != XMLStreamConstants.START_ELEMENT || !reader.getLocalName().equals("presentation"))
+            return null;
+        String imgFld = reader.getAttributeValue(null, "imageFolder");
+        if (imgFld == null)
             return null;
 
-        Element pres = doc.getDocumentElement();
-        imgFld = pres.getAttribute("imageFolder");
-
-        Element sldMst = (Element) pres.getFirstChild();
-        timer = Integer.parseInt(sldMst.getAttribute("timer"));
+        // The slide master has to be the first element of the presentation
+        if (reader.nextTag() != XMLStreamConstants.START_ELEMENT || !reader.getLocalName().equals("slideMaster"))
+            return null;
+        String timerValue = reader.getAttributeValue(null, "timer");
+        if (timerValue == null)
+            return null;
 
-        NodeList slides = sldMst.getElementsByTagName("slide");
-        images = new String[slides.getLength()];
-        effects = new SlideEffect[slides.getLength()];
-        for (int i = 0; i < images.length; i++) {
-            Element slide = (Element) slides.item(i);
-            images[i] = slide.getAttribute("image");
-            String effect = slide.getAttribute("effect");
-            if (effect.equals("WipeDown"))
-                effects[i] = new SlideEffect(SlideEffect.ChangeAnimation.WipeDown, Integer.parseInt(slide.getAttribute("effectTimer")));
-            else if (effect.equals("WipeLeft"))
-                effects[i] = new SlideEffect(SlideEffect.ChangeAnimation.WipeLeft, Integer.parseInt(slide.getAttribute("effectTimer")));
-            else if (effect.equals("WipeRight"))
-                effects[i] = new SlideEffect(SlideEffect.ChangeAnimation.WipeRight, Integer.parseInt(slide.getAttribute("effectTimer")));
-            else if (effect.equals("WipeUp"))
-                effects[i] = new SlideEffect(SlideEffect.ChangeAnimation.WipeUp, Integer.parseInt(slide.getAttribute("effectTimer")));
-            else if (effect.equals("Cross"))
-                effects[i] = new SlideEffect(SlideEffect.ChangeAnimation.Cross, Integer.parseInt(slide.getAttribute("effectTimer")));
-            else
-                effects[i] = new SlideEffect(SlideEffect.ChangeAnimation.None, Integer.parseInt(slide.getAttribute("effectTimer")));
+        List<String> images = new ArrayList<>();
+        List<SlideEffect> effects = new ArrayList<>();
+        List<String> sounds = new ArrayList<>();
+        try {
+            int timer = Integer.parseInt(timerValue);
+            int depth = 1;
+            while (depth > 0) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                } else if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    String tag = reader.getLocalName();
+                    if (tag.equals("slide")) {
+                        String image = reader.getAttributeValue(null, "image");
+                        String effect = reader.getAttributeValue(null, "effect");
+                        String effectTimer = reader.getAttributeValue(null, "effectTimer");
+                        if (reader.getAttributeValue(null, "id") == null || image == null || effect == null || effectTimer == null)
+                            return null;
+                        images.add(image);
+                        effects.add(new SlideEffect(effect, Integer.parseInt(effectTimer)));
+                    } else if (tag.equals("audio")) {
+                        String sound = reader.getAttributeValue(null, "sound");
+                        if (reader.getAttributeValue(null, "id") == null || sound == null)
+                            return null;
+                        sounds.add(sound);
+                    }
+                }
+            }
+            return new SlidesConfig(imgFld, images.toArray(new String[0]), effects.toArray(new SlideEffect[0]),
+                    sounds.toArray(new String[0]), timer == 0, timer);
+        } catch (NumberFormatException e) {
+            return null;
         }
+    }
 
-        NodeList audios = sldMst.getElementsByTagName("audio");
-        sounds = new String[audios.getLength()];
-        for (int i = 0; i < sounds.length; i++) {
-            Element audio = (Element) audios.item(i);
-            sounds[i] = audio.getAttribute("sound");
-        }
-        return new SlidesConfig(imgFld, images, effects, sounds, timer == 0, timer);
+    /**
+     * Checks to see if the file opened is a valid slideshow file
+     *
+     * @return true if the file is valid; false otherwise
+     */
+    public boolean isValid() {
+        return slidesConfig != null;
+    }
+
+    /**
+     * Returns the configuration of the load file
+     * @return The SlideConfig object for this load file, or null if the file is not valid
+     */
+    public SlidesConfig getSlidesConfig() {
+        return slidesConfig;
     }
-}
\ No newline at end of file
+}
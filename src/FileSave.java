@@ -1,35 +1,24 @@
-import java.io.File;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-
-import org.w3c.dom.*;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 /**
  * A Class to save the slideshow as an xml file
  */
 public class FileSave {
-    private Document doc;
-    private Element pres;
-    private Element sldMstr;
+    private static final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+
+    private SlidesConfig sc;
 
     /**
      * Constructs a FileSave object
      */
-    public FileSave() throws ParserConfigurationException {
-        DocumentBuilderFactory docFac = DocumentBuilderFactory.newInstance();
-        DocumentBuilder docBld = docFac.newDocumentBuilder();
-        doc = docBld.newDocument();
-        pres = doc.createElement("presentation");
-        doc.appendChild(pres);
-        sldMstr = doc.createElement("slideMaster");
-        pres.appendChild(sldMstr);
+    public FileSave() {
     }
 
     /**
@@ -37,64 +26,59 @@ public class FileSave {
      * @param sc The configuration of the slideshow save file
      */
     public void addFile(SlidesConfig sc) {
-        Attr imgFld = doc.createAttribute("imageFolder");
-        imgFld.setValue(sc.getSlidesFolder());
-        pres.setAttributeNode(imgFld);
+        this.sc = sc;
+    }
 
-        Attr tmr = doc.createAttribute("timer");
-        tmr.setValue(Integer.toString(sc.getSlideIntervalSeconds()));
-        sldMstr.setAttributeNode(tmr);
+    /**
+     * Prints the file as an xml document, streaming the slides straight to the file
+     * @return true if successful and false otherwise
+     */
+    public boolean printFile(String filename) {
+        if (!filename.substring(filename.length() - 4).toLowerCase().equals(".xml"))
+            filename = filename + ".xml";
+        try (Writer output = Files.newBufferedWriter(Paths.get(filename), StandardCharsets.UTF_8)) {
+            write(output);
+        } catch (XMLStreamException | IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes the presentation document to the writer. The writer is flushed but not closed.
+     * @param output writer the document is written to, encoded as UTF-8 by the caller
+     * @throws XMLStreamException if the document cannot be written
+     */
+    public void write(Writer output) throws XMLStreamException {
+        XMLStreamWriter writer = outputFactory.createXMLStreamWriter(output);
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.writeStartElement("presentation");
+        writer.writeAttribute("imageFolder", sc.getSlidesFolder() == null ? "" : sc.getSlidesFolder());
+        writer.writeStartElement("slideMaster");
+        writer.writeAttribute("timer", Integer.toString(sc.getSlideIntervalSeconds()));
 
         String[] slides = sc.getSlidesFileList();
         SlideEffect[] effects = sc.getSlideEffects();
         for (int i = 0; i < slides.length; i++) {
-            Element sld = doc.createElement("slide");
-            Attr idn = doc.createAttribute("id");
-            Attr img = doc.createAttribute("image");
-            Attr eff = doc.createAttribute("effect");
-            Attr effTim = doc.createAttribute("effectTimer");
-            idn.setValue(Integer.toString(i));
-            img.setValue(slides[i]);
-            eff.setValue(effects[i].getChangeAnimation().toString());
-            effTim.setValue(Integer.toString(effects[i].getDuration()));
-            sld.setAttributeNode(idn);
-            sld.setAttributeNode(img);
-            sld.setAttributeNode(eff);
-            sld.setAttributeNode(effTim);
-            sldMstr.appendChild(sld);
+            writer.writeEmptyElement("slide");
+            writer.writeAttribute("id", Integer.toString(i));
+            writer.writeAttribute("image", slides[i]);
+            writer.writeAttribute("effect", effects[i].getName());
+            writer.writeAttribute("effectTimer", Integer.toString(effects[i].getDuration()));
         }
 
         String[] sounds = sc.getSoundFiles();
         for (int i = 0; i < sounds.length; i++) {
-            Element audio = doc.createElement("audio");
-            Attr id = doc.createAttribute("id");
-            Attr snd = doc.createAttribute("sound");
-            id.setValue(Integer.toString(i));
-            snd.setValue(sounds[i]);
-            audio.setAttributeNode(id);
-            audio.setAttributeNode(snd);
-            sldMstr.appendChild(audio);
+            writer.writeEmptyElement("audio");
+            writer.writeAttribute("id", Integer.toString(i));
+            writer.writeAttribute("sound", sounds[i]);
         }
-    }
 
-    /**
-     * Prints the file as an xml document
-     * @return true if successful and false otherwise
-     */
-    public boolean printFile(String filename) {
-        try {
-            if (!filename.substring(filename.length() - 4).toLowerCase().equals(".xml"))
-                filename = filename + ".xml";
-            TransformerFactory transFac = TransformerFactory.newInstance();
-            Transformer trans = transFac.newTransformer();
-            DOMSource source = new DOMSource(doc);
-            StreamResult result = new StreamResult(new File(filename));
-
-            trans.transform(source, result);
-        } catch (TransformerException te) {
-            te.printStackTrace();
-            return false;
-        }
-        return true;
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        writer.flush();
+        writer.close();
     }
 }
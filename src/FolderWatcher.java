@@ -0,0 +1,176 @@
+import javax.swing.*;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches a folder for files being created, modified and deleted, and reports the changes on the event thread.
+ * Events are collected until the folder has been quiet for a moment, so a file still being copied is reported once
+ * rather than on every write. The files reported are compared with the last known state of the folder, which turns
+ * the raw events into deltas and also covers the events lost when the watch service overflows.
+ */
+public class FolderWatcher implements Closeable {
+    private static final long SETTLE_MILLIS = 300;
+
+    private final Path folder;
+    private final Predicate<Path> filter;
+    private final Listener listener;
+    private final WatchService watchService;
+    private final Map<Path, Long> known;
+    private final Thread thread;
+    private volatile boolean closed;
+
+    /**
+     * Constructor. Starts watching the folder.
+     *
+     * @param folder   folder to watch
+     * @param filter   files of interest; others are ignored
+     * @param initial  files already shown, the state the first changes are relative to
+     * @param listener receives the changes on the event thread
+     * @throws IOException if the folder cannot be watched
+     */
+    public FolderWatcher(Path folder, Predicate<Path> filter, Collection<Path> initial, Listener listener)
+            throws IOException {
+        this.folder = folder.toAbsolutePath();
+        this.filter = filter;
+        this.listener = listener;
+        this.known = new HashMap<>();
+        for (Path path : initial)
+            known.put(path, lastModified(path));
+        this.watchService = folder.getFileSystem().newWatchService();
+        this.folder.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        this.thread = new Thread(this::watch, "folder-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watch() {
+        Set<Path> touched = new HashSet<>();
+        // Files may have changed between the listing and the registration of the watch.
+        boolean rescan = true;
+        try {
+            while (!closed) {
+                WatchKey key = touched.isEmpty() && !rescan ? watchService.take()
+                        : watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == OVERFLOW)
+                            rescan = true;
+                        else
+                            touched.add(folder.resolve((Path) event.context()));
+                    }
+                    if (!key.reset()) {
+                        // The folder itself is gone.
+                        touched.addAll(known.keySet());
+                        report(touched);
+                        return;
+                    }
+                    continue;
+                }
+                if (rescan) {
+                    touched.addAll(known.keySet());
+                    touched.addAll(list());
+                    rescan = false;
+                }
+                report(touched);
+                touched.clear();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed.
+        }
+    }
+
+    private List<Path> list() {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+            for (Path path : stream)
+                paths.add(path);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return paths;
+    }
+
+    /**
+     * Compares the touched files with their last known state and reports the differences.
+     */
+    private void report(Set<Path> touched) {
+        List<Path> created = new ArrayList<>();
+        List<Path> modified = new ArrayList<>();
+        List<Path> deleted = new ArrayList<>();
+        for (Path path : touched) {
+            Long previous = known.get(path);
+            boolean exists = Files.isRegularFile(path) && filter.test(path);
+            if (!exists) {
+                if (previous != null) {
+                    known.remove(path);
+                    deleted.add(path);
+                }
+            } else {
+                long lastModified = lastModified(path);
+                if (previous == null)
+                    created.add(path);
+                else if (previous != lastModified)
+                    modified.add(path);
+                known.put(path, lastModified);
+            }
+        }
+        if (created.isEmpty() && modified.isEmpty() && deleted.isEmpty())
+            return;
+        Collections.sort(created);
+        SwingUtilities.invokeLater(() -> {
+            if (!closed)
+                listener.folderChanged(created, modified, deleted);
+        });
+    }
+
+    private static long lastModified(Path path) {
+        return path.toFile().lastModified();
+    }
+
+    /**
+     * Stops watching. Changes not reported yet are dropped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        thread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Receives the changes of the folder.
+     */
+    public interface Listener {
+        /**
+         * Called on the event thread with the changes since the last call.
+         *
+         * @param created  files created, sorted by name
+         * @param modified files whose contents changed
+         * @param deleted  files deleted
+         */
+        void folderChanged(List<Path> created, List<Path> modified, List<Path> deleted);
+    }
+}
@@ -0,0 +1,103 @@
+import java.util.Arrays;
+
+/**
+ * Frame timing of the player. Keeps the intervals between the last frames shown and the time spent rendering them,
+ * so percentiles and dropped frames can be reported for a transition.
+ */
+public class FrameStats {
+    private static final int CAPACITY = 1024;
+
+    private final long targetFrameNanos;
+    private final long[] intervals;
+    private final long[] renderTimes;
+    private int count;
+    private long lastFrame;
+    private long droppedFrames;
+    private long totalFrames;
+
+    /**
+     * Constructor. Initializes the private variables.
+     *
+     * @param targetFrameNanos time between two frames at the display refresh rate
+     */
+    public FrameStats(long targetFrameNanos) {
+        this.targetFrameNanos = targetFrameNanos;
+        this.intervals = new long[CAPACITY];
+        this.renderTimes = new long[CAPACITY];
+    }
+
+    /**
+     * Records a frame. A frame shown more than one and a half refresh periods after the previous one counts as
+     * dropped.
+     *
+     * @param frameStart  time the frame started rendering, from <code>System.nanoTime()</code>
+     * @param renderNanos time spent rendering the frame
+     */
+    public synchronized void record(long frameStart, long renderNanos) {
+        if (lastFrame != 0) {
+            long interval = frameStart - lastFrame;
+            intervals[count % CAPACITY] = interval;
+            renderTimes[count % CAPACITY] = renderNanos;
+            count++;
+            if (interval > targetFrameNanos * 3 / 2)
+                droppedFrames += interval / targetFrameNanos - 1;
+        }
+        lastFrame = frameStart;
+        totalFrames++;
+    }
+
+    /**
+     * Starts a new measurement window, e.g. at the beginning of a transition.
+     */
+    public synchronized void reset() {
+        count = 0;
+        lastFrame = 0;
+        droppedFrames = 0;
+        totalFrames = 0;
+    }
+
+    /**
+     * Returns the given percentile of the frame intervals in the current window.
+     *
+     * @param percentile percentile between 0 and 100
+     * @return the frame interval in nanoseconds, or 0 if no interval was recorded
+     */
+    public synchronized long getIntervalPercentile(double percentile) {
+        return percentile(intervals, percentile);
+    }
+
+    /**
+     * Returns the given percentile of the render times in the current window.
+     *
+     * @param percentile percentile between 0 and 100
+     * @return the render time in nanoseconds, or 0 if no frame was recorded
+     */
+    public synchronized long getRenderPercentile(double percentile) {
+        return percentile(renderTimes, percentile);
+    }
+
+    private long percentile(long[] values, double percentile) {
+        int size = Math.min(count, CAPACITY);
+        if (size == 0)
+            return 0;
+        long[] sorted = Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, index))];
+    }
+
+    /**
+     * Public getters for the frame counters.
+     * @return counters, respectively to the function.
+     */
+    public synchronized long getDroppedFrames() { return droppedFrames; }
+    public synchronized long getTotalFrames() { return totalFrames; }
+    public long getTargetFrameNanos() { return targetFrameNanos; }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d frames, %d dropped, interval p50 %.1f ms p99 %.1f ms, render p50 %.2f ms p99 %.2f ms",
+                totalFrames, droppedFrames, getIntervalPercentile(50) / 1e6, getIntervalPercentile(99) / 1e6,
+                getRenderPercentile(50) / 1e6, getRenderPercentile(99) / 1e6);
+    }
+}
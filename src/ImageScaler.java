@@ -0,0 +1,113 @@
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Decodes images straight to the size they are displayed at. The reader skips source pixels while decoding, and the
+ * rest of the way is covered by halving bilinear steps into an image compatible with the screen.
+ */
+public final class ImageScaler {
+    private ImageScaler() {
+    }
+
+    /**
+     * Reads the image file and scales it to the given size.
+     *
+     * @param file   image file to read
+     * @param width  width of the resulting image
+     * @param height height of the resulting image
+     * @return the scaled image
+     * @throws IOException if the file cannot be read or no reader supports it
+     */
+    public static BufferedImage read(File file, int width, int height) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            if (input == null)
+                throw new IOException("Cannot open " + file);
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext())
+                throw new IOException("No image reader for " + file);
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                // Keep twice the target size so the last bilinear step still filters the skipped pixels.
+                int xSubsampling = Math.max(1, reader.getWidth(0) / (2 * width));
+                int ySubsampling = Math.max(1, reader.getHeight(0) / (2 * height));
+                param.setSourceSubsampling(xSubsampling, ySubsampling, 0, 0);
+                return scale(reader.read(0, param), width, height);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Reads the size of the image from its header, without decoding it.
+     *
+     * @param file image file to read
+     * @return the size of the image
+     * @throws IOException if the file cannot be read or no reader supports it
+     */
+    public static Dimension readSize(File file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            if (input == null)
+                throw new IOException("Cannot open " + file);
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext())
+                throw new IOException("No image reader for " + file);
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales the image to the given size, halving it with bilinear filtering while it is more than twice as large
+     * as the target.
+     *
+     * @param image  image to scale
+     * @param width  width of the resulting image
+     * @param height height of the resulting image
+     * @return the scaled image, compatible with the screen
+     */
+    public static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage current = image;
+        int currentWidth = image.getWidth();
+        int currentHeight = image.getHeight();
+        do {
+            currentWidth = currentWidth / 2 > width ? currentWidth / 2 : width;
+            currentHeight = currentHeight / 2 > height ? currentHeight / 2 : height;
+            BufferedImage step = createCompatibleImage(currentWidth, currentHeight);
+            Graphics2D g2d = step.createGraphics();
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2d.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            g2d.dispose();
+            current = step;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    /**
+     * Creates an opaque image in the pixel layout of the default screen, so drawing it needs no conversion.
+     *
+     * @param width  width of the image
+     * @param height height of the image
+     * @return the new image
+     */
+    public static BufferedImage createCompatibleImage(int width, int height) {
+        if (GraphicsEnvironment.isHeadless())
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+                .createCompatibleImage(width, height, Transparency.OPAQUE);
+    }
+}
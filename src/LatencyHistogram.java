@@ -0,0 +1,113 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies with power-of-two millisecond buckets, from 1 ms up to 2 s and one bucket above. Recording
+ * is lock-free, so it can be called from several decoding threads.
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 12;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS + 1);
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos latency in nanoseconds
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(bucketOf(nanos));
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static int bucketOf(long nanos) {
+        long millis = (nanos + NANOS_PER_MILLI - 1) / NANOS_PER_MILLI;
+        if (millis <= 1)
+            return 0;
+        return Math.min(BUCKETS, 64 - Long.numberOfLeadingZeros(millis - 1));
+    }
+
+    /**
+     * Returns the upper bound of a bucket, in milliseconds.
+     *
+     * @param bucket index of the bucket
+     * @return the upper bound, or infinity for the last bucket
+     */
+    public static double getUpperBoundMillis(int bucket) {
+        return bucket < BUCKETS ? 1L << bucket : Double.POSITIVE_INFINITY;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i <= BUCKETS; i++)
+            count += counts.get(i);
+        return count;
+    }
+
+    public double getMeanMillis() {
+        long count = getCount();
+        return count == 0 ? 0 : totalNanos.get() / 1e6 / count;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    /**
+     * Returns the given percentile, rounded up to the bound of its bucket. The last bucket has no bound, so the
+     * largest latency recorded is returned instead.
+     *
+     * @param percentile percentile between 0 and 100
+     * @return the latency in milliseconds, or 0 if nothing was recorded
+     */
+    public double getPercentileMillis(double percentile) {
+        long[] snapshot = getCounts();
+        long count = 0;
+        for (long value : snapshot)
+            count += value;
+        if (count == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank)
+                return Math.min(getUpperBoundMillis(i), getMaxMillis());
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * Returns the number of latencies in every bucket.
+     *
+     * @return the counts, from the lowest bucket to the highest
+     */
+    public long[] getCounts() {
+        long[] snapshot = new long[BUCKETS + 1];
+        for (int i = 0; i <= BUCKETS; i++)
+            snapshot[i] = counts.get(i);
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        long[] snapshot = getCounts();
+        for (int i = 0; i <= BUCKETS; i++) {
+            if (snapshot[i] == 0)
+                continue;
+            if (builder.length() > 0)
+                builder.append(", ");
+            if (i < BUCKETS)
+                builder.append("<=").append((long) getUpperBoundMillis(i)).append(" ms: ");
+            else
+                builder.append(">").append((long) getUpperBoundMillis(BUCKETS - 1)).append(" ms: ");
+            builder.append(snapshot[i]);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,161 @@
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes JPEG frames to an AVI file with a single Motion JPEG video stream. The frame count and chunk sizes are
+ * only known at the end, so the headers are written with placeholders and patched when the writer is closed.
+ */
+public class MjpegAviWriter implements Closeable {
+    private static final int AVIF_HASINDEX = 0x10;
+    private static final int AVIIF_KEYFRAME = 0x10;
+    private static final long MAX_FILE_SIZE = 0xFFFFFFFFL;
+
+    // Offsets of the fields patched on close
+    private static final int RIFF_SIZE = 4;
+    private static final int AVIH_TOTAL_FRAMES = 48;
+    private static final int AVIH_BUFFER_SIZE = 60;
+    private static final int STRH_LENGTH = 140;
+    private static final int STRH_BUFFER_SIZE = 144;
+    private static final int MOVI_SIZE = 216;
+    private static final int MOVI_START = 220;
+
+    private final FileChannel channel;
+    private final ByteBuffer chunkHeader = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer indexEntry = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteArrayOutputStream index = new ByteArrayOutputStream();
+    private long position;
+    private int frames;
+    private int largestFrame;
+
+    /**
+     * Constructor. Creates the file and writes the headers.
+     *
+     * @param file   file to create
+     * @param width  width of the frames
+     * @param height height of the frames
+     * @param fps    frame rate of the video
+     * @throws IOException if the file cannot be written
+     */
+    public MjpegAviWriter(File file, int width, int height, int fps) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(MOVI_START + 4).order(ByteOrder.LITTLE_ENDIAN);
+        fourcc(header, "RIFF").putInt(0);
+        fourcc(header, "AVI ");
+
+        fourcc(header, "LIST").putInt(192);
+        fourcc(header, "hdrl");
+        fourcc(header, "avih").putInt(56);
+        header.putInt(1_000_000 / fps);            // microseconds per frame
+        header.putInt(0);                          // maximum bytes per second
+        header.putInt(0);                          // padding granularity
+        header.putInt(AVIF_HASINDEX);
+        header.putInt(0);                          // total frames
+        header.putInt(0);                          // initial frames
+        header.putInt(1);                          // streams
+        header.putInt(0);                          // suggested buffer size
+        header.putInt(width).putInt(height);
+        header.putInt(0).putInt(0).putInt(0).putInt(0);
+
+        fourcc(header, "LIST").putInt(116);
+        fourcc(header, "strl");
+        fourcc(header, "strh").putInt(56);
+        fourcc(header, "vids");
+        fourcc(header, "MJPG");
+        header.putInt(0);                          // flags
+        header.putShort((short) 0).putShort((short) 0);
+        header.putInt(0);                          // initial frames
+        header.putInt(1).putInt(fps);              // scale and rate
+        header.putInt(0);                          // start
+        header.putInt(0);                          // length
+        header.putInt(0);                          // suggested buffer size
+        header.putInt(-1);                         // quality
+        header.putInt(0);                          // sample size
+        header.putShort((short) 0).putShort((short) 0).putShort((short) width).putShort((short) height);
+        fourcc(header, "strf").putInt(40);
+        header.putInt(40);
+        header.putInt(width).putInt(height);
+        header.putShort((short) 1).putShort((short) 24);
+        fourcc(header, "MJPG");
+        header.putInt(width * height * 3);
+        header.putInt(0).putInt(0).putInt(0).putInt(0);
+
+        fourcc(header, "LIST").putInt(0);
+        fourcc(header, "movi");
+        header.flip();
+        write(header);
+    }
+
+    private static ByteBuffer fourcc(ByteBuffer buffer, String code) {
+        return buffer.put(code.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Appends a frame.
+     *
+     * @param jpeg the frame, encoded as JPEG
+     * @throws IOException if the frame cannot be written or the file would exceed the size limit of AVI
+     */
+    public void writeFrame(byte[] jpeg) throws IOException {
+        int padded = jpeg.length + (jpeg.length & 1);
+        if (position + 8 + padded + index.size() + 32 > MAX_FILE_SIZE)
+            throw new IOException("Video exceeds the 4 GB limit of AVI");
+
+        indexEntry.clear();
+        fourcc(indexEntry, "00dc").putInt(AVIIF_KEYFRAME).putInt((int) (position - MOVI_START)).putInt(jpeg.length);
+        index.write(indexEntry.array(), 0, indexEntry.capacity());
+
+        chunkHeader.clear();
+        fourcc(chunkHeader, "00dc").putInt(jpeg.length).flip();
+        write(chunkHeader);
+        write(ByteBuffer.wrap(jpeg));
+        if (padded != jpeg.length)
+            write(ByteBuffer.wrap(new byte[1]));
+        frames++;
+        largestFrame = Math.max(largestFrame, jpeg.length);
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            position += channel.write(buffer, position);
+    }
+
+    private void patch(long offset, int value) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(value);
+        buffer.flip();
+        while (buffer.hasRemaining())
+            offset += channel.write(buffer, offset);
+    }
+
+    public int getFrameCount() { return frames; }
+
+    /**
+     * Writes the index, patches the headers and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            long moviEnd = position;
+            chunkHeader.clear();
+            fourcc(chunkHeader, "idx1").putInt(index.size()).flip();
+            write(chunkHeader);
+            write(ByteBuffer.wrap(index.toByteArray()));
+
+            patch(RIFF_SIZE, (int) (position - 8));
+            patch(AVIH_TOTAL_FRAMES, frames);
+            patch(AVIH_BUFFER_SIZE, largestFrame + 8);
+            patch(STRH_LENGTH, frames);
+            patch(STRH_BUFFER_SIZE, largestFrame + 8);
+            patch(MOVI_SIZE, (int) (moviEnd - MOVI_SIZE - 4));
+        } finally {
+            channel.close();
+        }
+    }
+}
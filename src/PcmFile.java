@@ -0,0 +1,226 @@
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Uncompressed WAV or AIFF file. The header is parsed directly, and the PCM samples of the data chunk are mapped
+ * into memory, so playback reads them without going through a stream and any position is reachable at once.
+ */
+public class PcmFile implements Closeable {
+    private final FileChannel channel;
+    private final Header header;
+    private final ByteBuffer data;
+
+    private PcmFile(FileChannel channel, Header header, ByteBuffer data) {
+        this.channel = channel;
+        this.header = header;
+        this.data = data;
+    }
+
+    /**
+     * Opens the file and maps its samples.
+     *
+     * @param file WAV or AIFF file
+     * @return the mapped file
+     * @throws UnsupportedAudioFileException if the file is not uncompressed WAV or AIFF
+     * @throws IOException                   if the file cannot be read
+     */
+    public static PcmFile open(File file) throws UnsupportedAudioFileException, IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            Header header = readHeader(channel);
+            if (header.dataLength > Integer.MAX_VALUE)
+                throw new UnsupportedAudioFileException("Data chunk too large to map: " + file);
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, header.dataOffset, header.dataLength);
+            return new PcmFile(channel, header, data);
+        } catch (UnsupportedAudioFileException | IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads only the header of the file.
+     *
+     * @param file WAV or AIFF file
+     * @return the header
+     * @throws UnsupportedAudioFileException if the file is not uncompressed WAV or AIFF
+     * @throws IOException                   if the file cannot be read
+     */
+    public static Header readHeader(File file) throws UnsupportedAudioFileException, IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return readHeader(channel);
+        }
+    }
+
+    private static Header readHeader(FileChannel channel) throws UnsupportedAudioFileException, IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(12);
+        readFully(channel, buffer, 0);
+        String container = fourCC(buffer, 0);
+        String type = fourCC(buffer, 8);
+        if (container.equals("RIFF") && type.equals("WAVE"))
+            return readWaveHeader(channel);
+        if (container.equals("FORM") && (type.equals("AIFF") || type.equals("AIFC")))
+            return readAiffHeader(channel, type.equals("AIFC"));
+        throw new UnsupportedAudioFileException("Not a WAV or AIFF file");
+    }
+
+    private static Header readWaveHeader(FileChannel channel) throws UnsupportedAudioFileException, IOException {
+        AudioFormat format = null;
+        long position = 12;
+        ByteBuffer chunk = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+        while (position + 8 <= channel.size()) {
+            chunk.clear().limit(8);
+            readFully(channel, chunk, position);
+            String id = fourCC(chunk, 0);
+            long size = Integer.toUnsignedLong(chunk.getInt(4));
+            if (id.equals("fmt ")) {
+                if (size < 16)
+                    throw new UnsupportedAudioFileException("WAV fmt chunk too short");
+                chunk.clear().limit((int) Math.min(size, chunk.capacity()));
+                readFully(channel, chunk, position + 8);
+                int tag = chunk.getShort(0) & 0xFFFF;
+                if (tag == 0xFFFE && size >= 26)
+                    tag = chunk.getShort(24) & 0xFFFF;
+                int channels = chunk.getShort(2);
+                float sampleRate = chunk.getInt(4);
+                int frameSize = chunk.getShort(12);
+                int bits = chunk.getShort(14);
+                AudioFormat.Encoding encoding;
+                if (tag == 1)
+                    encoding = bits == 8 ? AudioFormat.Encoding.PCM_UNSIGNED : AudioFormat.Encoding.PCM_SIGNED;
+                else if (tag == 3)
+                    encoding = AudioFormat.Encoding.PCM_FLOAT;
+                else
+                    throw new UnsupportedAudioFileException("Compressed WAV format " + tag);
+                format = new AudioFormat(encoding, sampleRate, bits, channels, frameSize, sampleRate, false);
+            } else if (id.equals("data")) {
+                if (format == null)
+                    throw new UnsupportedAudioFileException("WAV data chunk before fmt chunk");
+                return new Header(format, position + 8, Math.min(size, channel.size() - position - 8));
+            }
+            position += 8 + size + (size & 1);
+        }
+        throw new UnsupportedAudioFileException("WAV file without data chunk");
+    }
+
+    private static Header readAiffHeader(FileChannel channel, boolean compressed) throws UnsupportedAudioFileException, IOException {
+        AudioFormat format = null;
+        long position = 12;
+        ByteBuffer chunk = ByteBuffer.allocate(26).order(ByteOrder.BIG_ENDIAN);
+        while (position + 8 <= channel.size()) {
+            chunk.clear().limit(8);
+            readFully(channel, chunk, position);
+            String id = fourCC(chunk, 0);
+            long size = Integer.toUnsignedLong(chunk.getInt(4));
+            if (id.equals("COMM")) {
+                if (size < (compressed ? 22 : 18))
+                    throw new UnsupportedAudioFileException("AIFF common chunk too short");
+                chunk.clear().limit((int) Math.min(size, chunk.capacity()));
+                readFully(channel, chunk, position + 8);
+                int channels = chunk.getShort(0);
+                int bits = chunk.getShort(6);
+                float sampleRate = (float) extendedToDouble(chunk, 8);
+                AudioFormat.Encoding encoding = AudioFormat.Encoding.PCM_SIGNED;
+                boolean bigEndian = true;
+                if (compressed) {
+                    String compression = fourCC(chunk, 18);
+                    if (compression.equals("sowt"))
+                        bigEndian = false;
+                    else if (compression.equals("fl32") || compression.equals("FL32"))
+                        encoding = AudioFormat.Encoding.PCM_FLOAT;
+                    else if (!compression.equals("NONE") && !compression.equals("twos"))
+                        throw new UnsupportedAudioFileException("Compressed AIFF format " + compression);
+                }
+                int frameSize = channels * ((bits + 7) / 8);
+                format = new AudioFormat(encoding, sampleRate, bits, channels, frameSize, sampleRate, bigEndian);
+            } else if (id.equals("SSND")) {
+                if (format == null)
+                    throw new UnsupportedAudioFileException("AIFF sound chunk before common chunk");
+                if (size < 8)
+                    throw new UnsupportedAudioFileException("AIFF sound chunk too short");
+                chunk.clear().limit(4);
+                readFully(channel, chunk, position + 8);
+                long offset = Integer.toUnsignedLong(chunk.getInt(0));
+                long start = position + 16 + offset;
+                // A corrupt offset would give a negative length, which mapping the samples does not accept.
+                if (offset > size - 8 || start > channel.size())
+                    throw new UnsupportedAudioFileException("AIFF sound chunk offset past its end");
+                return new Header(format, start, Math.min(size - 8 - offset, channel.size() - start));
+            }
+            position += 8 + size + (size & 1);
+        }
+        throw new UnsupportedAudioFileException("AIFF file without sound chunk");
+    }
+
+    /**
+     * Converts the 80-bit extended precision number AIFF uses for the sample rate.
+     */
+    private static double extendedToDouble(ByteBuffer buffer, int offset) {
+        int exponent = buffer.getShort(offset) & 0x7FFF;
+        long mantissa = buffer.getLong(offset + 2);
+        double value = (mantissa >>> 11) * Math.pow(2, exponent - 16383 - 52);
+        return (buffer.getShort(offset) & 0x8000) != 0 ? -value : value;
+    }
+
+    private static String fourCC(ByteBuffer buffer, int offset) {
+        byte[] id = new byte[4];
+        for (int i = 0; i < 4; i++)
+            id[i] = buffer.get(offset + i);
+        return new String(id, StandardCharsets.US_ASCII);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0)
+                throw new IOException("Unexpected end of audio file");
+        }
+    }
+
+    /**
+     * Returns an independent view of the samples, positioned at the first one.
+     *
+     * @return the mapped samples
+     */
+    public ByteBuffer getData() {
+        return data.duplicate();
+    }
+
+    public Header getHeader() {
+        return header;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Format and location of the samples of a WAV or AIFF file.
+     */
+    public static class Header {
+        private final AudioFormat format;
+        private final long dataOffset;
+        private final long dataLength;
+
+        private Header(AudioFormat format, long dataOffset, long dataLength) {
+            this.format = format;
+            this.dataOffset = dataOffset;
+            this.dataLength = dataLength;
+        }
+
+        public AudioFormat getFormat() { return format; }
+        public long getDataOffset() { return dataOffset; }
+        public long getDataLength() { return dataLength; }
+        public long getFrameLength() { return dataLength / Math.max(1, format.getFrameSize()); }
+        public double getDurationSeconds() { return getFrameLength() / format.getFrameRate(); }
+    }
+}
@@ -0,0 +1,125 @@
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single scheduler thread driving slide playback. Auto-advance fires on absolute deadlines spaced by the slide
+ * interval, so the time spent in transitions or decoding does not add up between slides. Transition frames and
+ * navigation requests run on the same thread, which keeps the player state single-threaded.
+ */
+public class PlaybackClock {
+    private final ScheduledExecutorService scheduler;
+    private final long intervalNanos;
+    private final Runnable onAdvance;
+
+    private ScheduledFuture<?> advance;
+    private long nextDeadline;
+    private int generation;
+
+    /**
+     * Constructor. Initializes the private variables and starts the scheduler thread.
+     *
+     * @param intervalMillis time between two automatic slide changes
+     * @param onAdvance      called on the clock thread at every deadline
+     */
+    public PlaybackClock(long intervalMillis, Runnable onAdvance) {
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.onAdvance = onAdvance;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "playback-clock");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts auto-advance, with the first deadline one interval from now.
+     */
+    public synchronized void start() {
+        stop();
+        nextDeadline = System.nanoTime() + intervalNanos;
+        scheduleAdvance();
+    }
+
+    /**
+     * Stops auto-advance. Pending transition frames keep running.
+     */
+    public synchronized void stop() {
+        generation++;
+        if (advance != null) {
+            advance.cancel(false);
+            advance = null;
+        }
+    }
+
+    /**
+     * Checks whether auto-advance is running.
+     *
+     * @return true if auto-advance is running; false otherwise
+     */
+    public synchronized boolean isRunning() {
+        return advance != null;
+    }
+
+    /**
+     * Runs the task on the clock thread.
+     *
+     * @param task task to run
+     */
+    public void execute(Runnable task) {
+        scheduler.execute(guarded(task));
+    }
+
+    /**
+     * Runs the task on the clock thread every period, starting now.
+     *
+     * @param task        task to run
+     * @param periodNanos time between two runs
+     * @return future used to cancel the task
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long periodNanos) {
+        return scheduler.scheduleAtFixedRate(guarded(task), 0, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops the clock thread.
+     */
+    public void shutdown() {
+        stop();
+        scheduler.shutdownNow();
+    }
+
+    private void scheduleAdvance() {
+        int current = generation;
+        advance = scheduler.schedule(() -> tick(current), nextDeadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    private void tick(int current) {
+        synchronized (this) {
+            if (current != generation)
+                return;
+        }
+        guarded(onAdvance).run();
+        synchronized (this) {
+            if (current != generation)
+                return;
+            // Deadlines missed while the machine was busy are skipped instead of fired in a burst.
+            long now = System.nanoTime();
+            nextDeadline += intervalNanos;
+            if (nextDeadline - now < 0)
+                nextDeadline += ((now - nextDeadline) / intervalNanos + 1) * intervalNanos;
+            scheduleAdvance();
+        }
+    }
+
+    private static Runnable guarded(Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        };
+    }
+}
@@ -0,0 +1,100 @@
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exposes the state of a <code>SlidesPlayer</code> as the MBean <code>SlidesPlayer:type=PlayerMetrics,id=n</code>.
+ * Every player of the process gets its own id, so players running side by side are monitored separately.
+ */
+public class PlayerMetrics implements PlayerMetricsMBean {
+    private static final String OBJECT_NAME = "SlidesPlayer:type=PlayerMetrics,id=";
+    private static final AtomicInteger nextId = new AtomicInteger(1);
+
+    private final SlidesPlayer player;
+    private final ObjectName name;
+
+    /**
+     * Constructor. Initializes the private variables and picks the name of the metrics.
+     *
+     * @param player player whose state is exposed
+     */
+    public PlayerMetrics(SlidesPlayer player) {
+        this.player = player;
+        this.name = createName();
+    }
+
+    private static ObjectName createName() {
+        try {
+            return new ObjectName(OBJECT_NAME + nextId.getAndIncrement());
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server.
+     */
+    public void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Removes the metrics of this player from the platform MBean server.
+     */
+    public void unregister() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name))
+                server.unregisterMBean(name);
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override public int getCurrentSlide() { return player.getCurrentSlide(); }
+    @Override public int getSlideCount() { return player.getSlideCount(); }
+    @Override public String getState() { return player.getPlaybackState(); }
+
+    @Override public long getDecodeCount() { return player.getDecodeLatency().getCount(); }
+    @Override public double getDecodeLatencyMeanMillis() { return player.getDecodeLatency().getMeanMillis(); }
+    @Override public double getDecodeLatencyP50Millis() { return player.getDecodeLatency().getPercentileMillis(50); }
+    @Override public double getDecodeLatencyP95Millis() { return player.getDecodeLatency().getPercentileMillis(95); }
+    @Override public double getDecodeLatencyP99Millis() { return player.getDecodeLatency().getPercentileMillis(99); }
+    @Override public double getDecodeLatencyMaxMillis() { return player.getDecodeLatency().getMaxMillis(); }
+    @Override public String getDecodeLatencyHistogram() { return player.getDecodeLatency().toString(); }
+
+    @Override public long getTransitionCount() { return player.getTransitionCount(); }
+    @Override public double getFrameIntervalP50Millis() { return player.getFrameStats().getIntervalPercentile(50) / 1e6; }
+    @Override public double getFrameIntervalP99Millis() { return player.getFrameStats().getIntervalPercentile(99) / 1e6; }
+    @Override public double getFrameRenderP99Millis() { return player.getFrameStats().getRenderPercentile(99) / 1e6; }
+    @Override public long getLastTransitionDroppedFrames() { return player.getFrameStats().getDroppedFrames(); }
+    @Override public long getTotalDroppedFrames() { return player.getTotalDroppedFrames(); }
+    @Override public long getPrerenderedFrames() { return player.getTransitionFrames().getPrerenderedFrames(); }
+    @Override public long getLiveRenderedFrames() { return player.getTransitionFrames().getLiveFrames(); }
+
+    @Override public int getCachedSlides() { return player.getSlideCache().getSize(); }
+    @Override public long getCacheUsedBytes() { return player.getSlideCache().getUsedBytes(); }
+    @Override public long getCacheBudgetBytes() { return player.getSlideCache().getBudgetBytes(); }
+    @Override public long getCacheHits() { return player.getSlideCache().getHits(); }
+    @Override public long getCacheMisses() { return player.getSlideCache().getMisses(); }
+    @Override public long getCacheEvictions() { return player.getSlideCache().getEvictions(); }
+
+    @Override
+    public double getAudioBufferFill() {
+        AudioEngine audioEngine = player.getAudioEngine();
+        return audioEngine == null ? 0 : audioEngine.getBufferFill();
+    }
+
+    @Override
+    public long getAudioUnderruns() {
+        AudioEngine audioEngine = player.getAudioEngine();
+        return audioEngine == null ? 0 : audioEngine.getUnderruns();
+    }
+}
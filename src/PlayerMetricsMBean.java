@@ -0,0 +1,41 @@
+/**
+ * Management interface of the running player, for diagnosing stutter remotely with any JMX client. Times are in
+ * milliseconds and sizes in bytes.
+ */
+public interface PlayerMetricsMBean {
+    /* Playback */
+    int getCurrentSlide();
+    int getSlideCount();
+    String getState();
+
+    /* Slide decoding */
+    long getDecodeCount();
+    double getDecodeLatencyMeanMillis();
+    double getDecodeLatencyP50Millis();
+    double getDecodeLatencyP95Millis();
+    double getDecodeLatencyP99Millis();
+    double getDecodeLatencyMaxMillis();
+    String getDecodeLatencyHistogram();
+
+    /* Transitions, the frame times are those of the last transition */
+    long getTransitionCount();
+    double getFrameIntervalP50Millis();
+    double getFrameIntervalP99Millis();
+    double getFrameRenderP99Millis();
+    long getLastTransitionDroppedFrames();
+    long getTotalDroppedFrames();
+    long getPrerenderedFrames();
+    long getLiveRenderedFrames();
+
+    /* Slide cache */
+    int getCachedSlides();
+    long getCacheUsedBytes();
+    long getCacheBudgetBytes();
+    long getCacheHits();
+    long getCacheMisses();
+    long getCacheEvictions();
+
+    /* Audio, zero when the presentation has no audio */
+    double getAudioBufferFill();
+    long getAudioUnderruns();
+}
@@ -1,9 +1,8 @@
 import javax.swing.*;
-import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 
-public abstract class ReorderableElementPanel<T extends SelectableElement> extends SelectableElementPanel<T> implements ActionListener {
+public abstract class ReorderableElementPanel<T extends Selectable> extends SelectableElementPanel<T> implements ActionListener {
     private final JButton startButton;
     private final JButton beforeButton;
     private final JButton afterButton;
@@ -55,16 +54,10 @@ public abstract class ReorderableElementPanel<T extends SelectableElement> exten
 
     @Override
     public void actionPerformed(ActionEvent e) {
-        T element = selectedIndex >= 0 ? elements.remove(selectedIndex) : null;
-        if (e.getSource() == startButton)
-            selectedIndex = 0;
-        if (e.getSource() == beforeButton)
-            selectedIndex = Math.max(0, selectedIndex - 1);
-        if (e.getSource() == afterButton)
-            selectedIndex = Math.min(elements.size(), selectedIndex + 1);
-        if (e.getSource() == finishButton)
-            selectedIndex = elements.size();
+        if (selectedIndex < 0)
+            return;
         if (e.getSource() == removeButton) {
+            removeElement(selectedIndex);
             if (elements.isEmpty())
                 onElementSelectedChanged(false, -1);
             else {
@@ -72,16 +65,19 @@ public abstract class ReorderableElementPanel<T extends SelectableElement> exten
                 elements.get(newIndex).setSelected(true);
                 onElementSelectedChanged(true, newIndex);
             }
-        } else {
-            if (element != null)
-                elements.add(selectedIndex, element);
+            return;
         }
 
-        resetFlowPanelWithList();
-
-        for (int i = 0; i < elements.size(); i++) {
-            if ((elements.get(i).getBackground() == Color.BLUE) != (i == selectedIndex))
-                System.out.println("ERROR");
-        }
+        int from = selectedIndex;
+        int lastIndex = elements.size() - 1;
+        if (e.getSource() == startButton)
+            selectedIndex = 0;
+        if (e.getSource() == beforeButton)
+            selectedIndex = Math.max(0, selectedIndex - 1);
+        if (e.getSource() == afterButton)
+            selectedIndex = Math.min(lastIndex, selectedIndex + 1);
+        if (e.getSource() == finishButton)
+            selectedIndex = lastIndex;
+        moveElement(from, selectedIndex);
     }
 }
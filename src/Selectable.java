@@ -0,0 +1,15 @@
+/**
+ * An entry of a <code>SelectableElementPanel</code>: the data it holds, its position in the panel and whether it is
+ * selected.
+ */
+public interface Selectable {
+    String getData();
+
+    boolean isSelected();
+
+    void setSelected(boolean selected);
+
+    int getIndex();
+
+    void setIndex(int index);
+}
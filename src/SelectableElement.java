@@ -3,13 +3,13 @@ import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 
-public class SelectableElement extends JPanel implements MouseListener {
+public class SelectableElement extends JPanel implements Selectable, MouseListener {
     private final String data;
-    private final SelectableElementPanel<? extends SelectableElement> container;
+    private final SelectableElementPanel<? extends Selectable> container;
     private boolean selected;
     private int index;
 
-    public SelectableElement(int index, String data, SelectableElementPanel<? extends SelectableElement> container) {
+    public SelectableElement(int index, String data, SelectableElementPanel<? extends Selectable> container) {
         this.data = data;
         this.container = container;
 
@@ -53,6 +53,10 @@ public class SelectableElement extends JPanel implements MouseListener {
         return data;
     }
 
+    public boolean isSelected() {
+        return selected;
+    }
+
     public void setSelected(boolean selected) {
         this.selected = selected;
         updateView();
@@ -71,13 +75,13 @@ public class SelectableElement extends JPanel implements MouseListener {
         repaint();
     }
 
-    public static <T extends SelectableElement> SelectableElement createElement(int index, String data, SelectableElementPanel<T> container ) {
+    public static <T extends Selectable> Selectable createElement(int index, String data, SelectableElementPanel<T> container ) {
         if (container.getClass() == SlidesConfigView.ThumbnailComponent.class)
-            return new SlidesConfigView.ImageThumbnail(index, data, container);
+            return new SlidesConfigView.ImageThumbnail(index, data);
         if (container.getClass() == SlidesConfigView.WavComponent.class)
             return new SlidesConfigView.WavThumbnail(index, data, container);
         if (container.getClass() == SlidesConfigView.SlideComponent.class)
-            return new SlidesConfigView.ImageWithEffectThumbnail(index, data, container);
+            return new SlidesConfigView.ImageWithEffectThumbnail(index, data);
         throw new IllegalStateException();
     }
 }
@@ -1,17 +1,22 @@
 import javax.swing.*;
+import java.awt.Component;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
-public abstract class SelectableElementPanel<T extends SelectableElement> {
+public abstract class SelectableElementPanel<T extends Selectable> {
     protected final JPanel flowPanel;
     protected final List<T> elements;
 
     protected int selectedIndex;
     protected Runnable applyOnUpdate;
+    protected IntConsumer applyOnElementUpdate;
 
     public SelectableElementPanel(JPanel flowPanel) {
         this.flowPanel = flowPanel;
@@ -24,9 +29,66 @@ public abstract class SelectableElementPanel<T extends SelectableElement> {
     }
 
     public void add(String data) {
-        T element = (T) SelectableElement.createElement(elements.size(), data, this);
+        T element = createElement(data);
         elements.add(element);
-        resetFlowPanelWithList();
+        addToView(element, elements.size() - 1);
+        updateFlowPanel();
+    }
+
+    /**
+     * Appends elements at the end of the list without rebuilding it.
+     *
+     * @param data data of the new elements
+     */
+    public void addElements(Collection<String> data) {
+        if (data.isEmpty())
+            return;
+        for (String value : data) {
+            T element = createElement(value);
+            elements.add(element);
+            addToView(element, elements.size() - 1);
+        }
+        updateFlowPanel();
+    }
+
+    /**
+     * Removes the elements holding any of the data in one pass. Only the elements after the first one removed are
+     * reindexed, and the selection follows its element.
+     *
+     * @param data data of the elements to remove
+     */
+    public void removeElements(Collection<String> data) {
+        Set<String> removed = new HashSet<>(data);
+        int kept = 0;
+        int newSelectedIndex = selectedIndex;
+        boolean selectionRemoved = false;
+        for (int i = 0; i < elements.size(); i++) {
+            T element = elements.get(i);
+            if (removed.contains(element.getData())) {
+                // The elements kept so far come first in the view, so this one is right after them.
+                removeFromView(kept);
+                if (i == selectedIndex)
+                    selectionRemoved = true;
+                else if (i < selectedIndex)
+                    newSelectedIndex--;
+            } else {
+                if (kept != i) {
+                    elements.set(kept, element);
+                    element.setIndex(kept);
+                }
+                kept++;
+            }
+        }
+        if (kept == elements.size())
+            return;
+        elements.subList(kept, elements.size()).clear();
+        if (selectionRemoved) {
+            selectedIndex = -1;
+            onElementSelectedChanged(false, -1);
+        } else {
+            selectedIndex = newSelectedIndex;
+        }
+        updateFlowPanel();
     }
 
     public void processSelectedPaths(Collection<Path> paths) {
@@ -51,24 +113,119 @@ public abstract class SelectableElementPanel<T extends SelectableElement> {
         selectedIndex = isSelected ? index : -1;
     }
 
+    /**
+     * Sets the action run when a single element changes, instead of the one run when the list changes.
+     *
+     * @param consumer action receiving the index of the changed element
+     */
+    public void setApplyOnElementUpdate(IntConsumer consumer) {
+        this.applyOnElementUpdate = consumer;
+    }
+
+    public void onElementUpdated(int index) {
+        if (applyOnElementUpdate != null)
+            applyOnElementUpdate.accept(index);
+        else if (applyOnUpdate != null)
+            applyOnUpdate.run();
+    }
+
+    /**
+     * Rebuilds the flow panel from the list. Only used when the whole list is replaced; single changes go through
+     * <code>moveElement</code> and <code>removeElement</code>.
+     */
     protected void resetFlowPanelWithList() {
-        flowPanel.removeAll();
+        clearView();
         for(int i = 0; i<elements.size(); i++) {
             T element = elements.get(i);
             element.setIndex(i);
-            flowPanel.add(element);
+            addToView(element, i);
         }
-        flowPanel.repaint();
-        flowPanel.updateUI();
+        updateFlowPanel();
+    }
+
+    /**
+     * Moves an element in the list and in the flow panel. Only the elements between both positions are reindexed.
+     *
+     * @param from index of the element
+     * @param to   index of the element once moved
+     */
+    protected void moveElement(int from, int to) {
+        if (from == to)
+            return;
+        T element = elements.remove(from);
+        elements.add(to, element);
+        removeFromView(from);
+        addToView(element, to);
+        reindex(Math.min(from, to), Math.max(from, to));
+        updateFlowPanel();
+    }
+
+    /**
+     * Removes an element from the list and from the flow panel. Only the elements after it are reindexed.
+     *
+     * @param index index of the element
+     * @return the removed element
+     */
+    protected T removeElement(int index) {
+        T element = elements.remove(index);
+        removeFromView(index);
+        reindex(index, elements.size() - 1);
+        updateFlowPanel();
+        return element;
+    }
+
+    private void reindex(int from, int to) {
+        for (int i = from; i <= to; i++)
+            elements.get(i).setIndex(i);
+    }
+
+    private void updateFlowPanel() {
+        refreshView();
 
         if (applyOnUpdate != null)
             applyOnUpdate.run();
     }
 
+    /**
+     * Shows the element in the flow panel. Panels that draw their elements themselves override the view methods.
+     *
+     * @param element element to show, a component
+     * @param index   position of the element
+     */
+    protected void addToView(T element, int index) {
+        flowPanel.add((Component) element, index);
+    }
+
+    protected void removeFromView(int index) {
+        flowPanel.remove(index);
+    }
+
+    protected void clearView() {
+        flowPanel.removeAll();
+    }
+
+    /**
+     * Lays out the flow panel again after a change. Revalidating only lays out the panel, where updating its UI
+     * would also reinstall the look and feel.
+     */
+    protected void refreshView() {
+        flowPanel.revalidate();
+        flowPanel.repaint();
+    }
+
+    /**
+     * Creates the element of this panel holding the data, at the end of the list. <code>SelectableElement</code>
+     * picks the element class from the class of the panel, so the element is always a <code>T</code>.
+     */
+    @SuppressWarnings("unchecked")
+    private T createElement(String data) {
+        return (T) SelectableElement.createElement(elements.size(), data, this);
+    }
+
     private void setValues(List<String> data) {
         elements.clear();
         for (int i = 0; i < data.size(); i++) {
-            T element = (T) SelectableElement.createElement(elements.size(), data.get(i), this);
+            T element = createElement(data.get(i));
             elements.add(element);
         }
         resetFlowPanelWithList();
@@ -0,0 +1,215 @@
+import javax.xml.stream.XMLStreamException;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A presentation packed into one file together with its slides, already rendered at the player resolution the way
+ * the player renders image files: fitted, centered and letterboxed in black. Slides are stored as raw RGB pixels, so
+ * showing one is a copy out of the memory-mapped file rather than a decode.
+ *
+ * Version 1 bundles held slides stretched to the bundle size; they are rejected and have to be exported again.
+ *
+ * Layout, big-endian:
+ * <pre>
+ *   int     magic "SLDB"
+ *   int     version
+ *   int     width and height of the slides
+ *   int     slide count
+ *   int     length of the presentation document
+ *   byte[]  presentation document, UTF-8 XML as written by FileSave, padded to 8 bytes
+ *   index   for every slide: long offset in the file, int width, int height
+ *   int[]   pixels of every slide, 0xRRGGBB, row by row
+ * </pre>
+ */
+public class SlideBundle implements Closeable {
+    private static final int MAGIC = 0x534C4442;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 24;
+    private static final int INDEX_ENTRY_SIZE = 16;
+
+    private final FileChannel channel;
+    private final SlidesConfig slidesConfig;
+    private final int width;
+    private final int height;
+    private final long[] offsets;
+    private final int[] widths;
+    private final int[] heights;
+
+    private SlideBundle(FileChannel channel, SlidesConfig slidesConfig, int width, int height, int slideCount) {
+        this.channel = channel;
+        this.slidesConfig = slidesConfig;
+        this.width = width;
+        this.height = height;
+        this.offsets = new long[slideCount];
+        this.widths = new int[slideCount];
+        this.heights = new int[slideCount];
+    }
+
+    /**
+     * Renders every slide of the presentation at the size of the bundle, as <code>SlidePyramid.render</code> does
+     * for the player, and writes them to a bundle together with the presentation. Slides are written one at a time,
+     * so the memory used does not depend on the length of the presentation.
+     *
+     * @param config presentation to export
+     * @param file   bundle to create
+     * @param width  width of the slides in the bundle
+     * @param height height of the slides in the bundle
+     * @throws IOException        if the bundle cannot be written
+     * @throws XMLStreamException if the presentation cannot be written
+     */
+    public static void export(SlidesConfig config, File file, int width, int height) throws IOException, XMLStreamException {
+        ByteArrayOutputStream document = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(document, StandardCharsets.UTF_8)) {
+            FileSave fileSave = new FileSave();
+            fileSave.addFile(config);
+            fileSave.write(writer);
+        }
+        byte[] xml = document.toByteArray();
+
+        String[] slides = config.getSlidesFileList();
+        long indexOffset = align(HEADER_SIZE + xml.length);
+        long dataOffset = indexOffset + (long) INDEX_ENTRY_SIZE * slides.length;
+
+        try (FileChannel output = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate((int) indexOffset);
+            header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(slides.length).putInt(xml.length);
+            header.put(xml);
+            header.clear();
+            write(output, header, 0);
+
+            // The index is written slide by slide, as the size of a slide is only known once it is rendered.
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+            ByteBuffer pixels = ByteBuffer.allocate(4 * width * height);
+            long offset = dataOffset;
+            for (int i = 0; i < slides.length; i++) {
+                BufferedImage image;
+                try {
+                    image = SlidePyramid.read(new File(slides[i]), width, height).render(width, height);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    image = ImageScaler.createCompatibleImage(width, height);
+                }
+                int w = image.getWidth();
+                int h = image.getHeight();
+                pixels.clear();
+                IntBuffer ints = pixels.asIntBuffer();
+                int[] row = new int[w];
+                for (int y = 0; y < h; y++) {
+                    image.getRGB(0, y, w, 1, row, 0, w);
+                    ints.put(row);
+                }
+                pixels.limit(4 * w * h);
+                write(output, pixels, offset);
+
+                entry.clear();
+                entry.putLong(offset).putInt(w).putInt(h).flip();
+                write(output, entry, indexOffset + (long) INDEX_ENTRY_SIZE * i);
+                offset += 4L * w * h;
+            }
+        }
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining())
+            position += channel.write(buffer, position);
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /**
+     * Opens a bundle and reads its presentation. The slides are only mapped when they are read.
+     *
+     * @param file bundle to open
+     * @return the opened bundle
+     * @throws IOException        if the file cannot be read or is not a slide bundle
+     * @throws XMLStreamException if the presentation in the bundle is not well-formed
+     */
+    public static SlideBundle open(File file) throws IOException, XMLStreamException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), HEADER_SIZE));
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC)
+                throw new IOException("Not a slide bundle: " + file);
+            if (header.getInt() != VERSION)
+                throw new IOException("Unsupported slide bundle version: " + file);
+            int width = header.getInt();
+            int height = header.getInt();
+            int slideCount = header.getInt();
+            int xmlLength = header.getInt();
+
+            long indexOffset = align(HEADER_SIZE + (long) xmlLength);
+            long indexEnd = indexOffset + (long) INDEX_ENTRY_SIZE * slideCount;
+            if (width <= 0 || height <= 0 || slideCount < 0 || xmlLength < 0 || indexEnd > channel.size())
+                throw new IOException("Truncated slide bundle: " + file);
+
+            MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, indexEnd - HEADER_SIZE);
+            byte[] xml = new byte[xmlLength];
+            table.get(xml);
+            FileLoad fileLoad = new FileLoad(new ByteArrayInputStream(xml));
+            if (!fileLoad.isValid() || fileLoad.getSlidesConfig().getSlidesFileList().length != slideCount)
+                throw new IOException("Invalid presentation in slide bundle: " + file);
+
+            SlideBundle bundle = new SlideBundle(channel, fileLoad.getSlidesConfig(), width, height, slideCount);
+            table.position((int) (indexOffset - HEADER_SIZE));
+            for (int i = 0; i < slideCount; i++) {
+                bundle.offsets[i] = table.getLong();
+                bundle.widths[i] = table.getInt();
+                bundle.heights[i] = table.getInt();
+                if (bundle.widths[i] <= 0 || bundle.heights[i] <= 0
+                        || bundle.offsets[i] + 4L * bundle.widths[i] * bundle.heights[i] > channel.size())
+                    throw new IOException("Truncated slide bundle: " + file);
+            }
+            return bundle;
+        } catch (IOException | XMLStreamException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Copies the pixels of a slide out of the bundle.
+     *
+     * @param index index of the slide in the presentation
+     * @return the slide, fitted and letterboxed to the size of the bundle
+     * @throws IOException if the slide cannot be mapped
+     */
+    public BufferedImage readSlide(int index) throws IOException {
+        int width = widths[index];
+        int height = heights[index];
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offsets[index], 4L * width * height);
+        int[] pixels = new int[width * height];
+        buffer.asIntBuffer().get(pixels);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        // Copied through the raster so the image stays eligible for acceleration.
+        image.getRaster().setDataElements(0, 0, width, height, pixels);
+        return image;
+    }
+
+    /**
+     * Closes the file. Slides already read stay valid.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public SlidesConfig getSlidesConfig() { return slidesConfig; }
+    public int getSlideCount() { return offsets.length; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+}
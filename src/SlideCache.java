@@ -0,0 +1,212 @@
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Memory-bounded cache of decoded slides. Slides are decoded on demand by the loader and the least recently used
+ * ones are evicted once the decoded pixels exceed the configured budget.
+ *
+ * @param <T> type of the decoded slides, usually <code>BufferedImage</code>
+ */
+public class SlideCache<T> {
+    private final IntFunction<T> loader;
+    private final ToLongFunction<T> sizeOf;
+    private long budgetBytes;
+    private final LinkedHashMap<Integer, T> slides;
+    private final Map<Integer, CompletableFuture<T>> pending;
+    private long usedBytes;
+    private Consumer<T> evictionListener;
+    private boolean closed;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Constructor. Initializes the private variables.
+     *
+     * @param loader   function decoding the slide with the given index
+     * @param sizeOf   function returning the size of a decoded slide in bytes
+     * @param budgetMb maximum size of the decoded slides kept in memory, in megabytes
+     */
+    public SlideCache(IntFunction<T> loader, ToLongFunction<T> sizeOf, int budgetMb) {
+        this.loader = loader;
+        this.sizeOf = sizeOf;
+        this.budgetBytes = budgetMb * 1024L * 1024L;
+        this.slides = new LinkedHashMap<>(16, 0.75f, true);
+        this.pending = new HashMap<>();
+    }
+
+    /**
+     * Public setter for private variable.
+     *
+     * @param evictionListener called with every slide leaving the cache, e.g. to release it to a shared store
+     */
+    public synchronized void setEvictionListener(Consumer<T> evictionListener) {
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * Returns the decoded slide, loading it if it is not in the cache. If another thread is already loading the same
+     * slide, waits for that load instead of decoding it a second time, and fails with it if the loader throws.
+     *
+     * @param index index of the slide in the presentation
+     * @return the decoded slide
+     */
+    public T get(int index) {
+        CompletableFuture<T> load;
+        boolean owner = false;
+        synchronized (this) {
+            T image = slides.get(index);
+            if (image != null) {
+                hits++;
+                return image;
+            }
+            misses++;
+            load = pending.get(index);
+            if (load == null) {
+                load = new CompletableFuture<>();
+                pending.put(index, load);
+                owner = true;
+            }
+        }
+        if (owner) {
+            T image;
+            try {
+                image = loader.apply(index);
+            } catch (RuntimeException | Error e) {
+                synchronized (this) {
+                    pending.remove(index);
+                }
+                // Threads waiting for the same slide fail the same way as the loading one.
+                load.completeExceptionally(e);
+                throw e;
+            }
+            synchronized (this) {
+                pending.remove(index);
+                if (image != null && closed) {
+                    // Loaded while the cache was being closed; it is handed back rather than kept.
+                    evicted(image);
+                } else if (image != null) {
+                    slides.put(index, image);
+                    usedBytes += sizeOf.applyAsLong(image);
+                    evict(index);
+                }
+            }
+            load.complete(image);
+            return image;
+        }
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether the slide is decoded and in memory.
+     *
+     * @param index index of the slide in the presentation
+     * @return true if the slide is cached; false otherwise
+     */
+    public synchronized boolean contains(int index) {
+        return slides.containsKey(index);
+    }
+
+    /**
+     * Changes the budget, e.g. when the output size and with it the size of every slide changes. Least recently used
+     * slides are evicted if the cache no longer fits.
+     *
+     * @param budgetBytes maximum size of the decoded slides kept in memory, in bytes
+     */
+    public synchronized void setBudgetBytes(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+        evict(-1);
+    }
+
+    /**
+     * Removes least recently used slides until the cache fits the budget. The slide just loaded is always kept.
+     *
+     * @param keep index of the slide that must stay in the cache
+     */
+    private void evict(int keep) {
+        Iterator<Map.Entry<Integer, T>> iterator = slides.entrySet().iterator();
+        while (usedBytes > budgetBytes && iterator.hasNext()) {
+            Map.Entry<Integer, T> eldest = iterator.next();
+            if (eldest.getKey() == keep)
+                continue;
+            usedBytes -= sizeOf.applyAsLong(eldest.getValue());
+            iterator.remove();
+            evictions++;
+            evicted(eldest.getValue());
+        }
+    }
+
+    private void evicted(T image) {
+        if (evictionListener != null)
+            evictionListener.accept(image);
+    }
+
+    /**
+     * Drops the slide from the cache, so the next <code>get</code> loads it again.
+     *
+     * @param index index of the slide in the presentation
+     */
+    public synchronized void remove(int index) {
+        T image = slides.remove(index);
+        if (image != null) {
+            usedBytes -= sizeOf.applyAsLong(image);
+            evicted(image);
+        }
+    }
+
+    /**
+     * Drops every cached slide.
+     */
+    public synchronized void clear() {
+        slides.values().forEach(this::evicted);
+        slides.clear();
+        usedBytes = 0;
+    }
+
+    /**
+     * Drops every cached slide for good. Slides still being loaded are passed to the eviction listener as soon as
+     * they are loaded, instead of being cached.
+     */
+    public synchronized void close() {
+        closed = true;
+        clear();
+    }
+
+    /**
+     * Returns the size of the pixels of a decoded image, counted as four bytes per pixel.
+     *
+     * @param image decoded image
+     * @return the size in bytes
+     */
+    public static long sizeOf(BufferedImage image) {
+        return (long) image.getWidth() * image.getHeight() * 4;
+    }
+
+    /**
+     * Public getters for the cache statistics.
+     * @return statistics, respectively to the function.
+     */
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+    public synchronized int getSize() { return slides.size(); }
+    public synchronized long getUsedBytes() { return usedBytes; }
+    public synchronized long getBudgetBytes() { return budgetBytes; }
+}
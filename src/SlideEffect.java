@@ -5,27 +5,83 @@ public class SlideEffect {
         Cross,
         WipeUp,
         WipeDown,
-        None
+        None;
+
+        /**
+         * Returns the animation with the given name.
+         *
+         * @param name name of the animation, as saved in presentation files
+         * @return the animation, or <code>None</code> if the name is not one of the built-in animations
+         */
+        public static ChangeAnimation fromName(String name) {
+            for (ChangeAnimation changeAnimation : values()) {
+                if (changeAnimation.name().equals(name))
+                    return changeAnimation;
+            }
+            return None;
+        }
     }
 
-    private ChangeAnimation changeAnimation;
+    private String name;
     private int duration;
 
     public SlideEffect(ChangeAnimation changeAnimation, int duration) {
-        this.changeAnimation = changeAnimation;
+        this(changeAnimation.name(), duration);
+    }
+
+    /**
+     * Constructor. Initializes the private variables.
+     *
+     * @param name     name of the effect in <code>TransitionRenderers</code>, as saved in presentation files
+     * @param duration duration of the transition, in seconds
+     */
+    public SlideEffect(String name, int duration) {
+        this.name = name;
         this.duration = duration;
     }
 
+    /**
+     * Public getter for private variable.
+     *
+     * @return name of the effect in <code>TransitionRenderers</code>
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the built-in animation of the effect.
+     *
+     * @return the animation, or <code>None</code> if the effect is not a built-in one
+     */
     public ChangeAnimation getChangeAnimation() {
-        return changeAnimation;
+        return ChangeAnimation.fromName(name);
     }
 
     public int getDuration() {
         return duration;
     }
 
+    /**
+     * Returns the renderer registered under the name of the effect.
+     *
+     * @return the renderer, or the renderer of <code>None</code> if no renderer has the name
+     */
+    public TransitionRenderer getRenderer() {
+        return TransitionRenderers.get(name);
+    }
+
+    /**
+     * Public setter for private variable.
+     *
+     * @param name name of the effect in <code>TransitionRenderers</code>
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
     public void setChangeAnimation(ChangeAnimation changeAnimation) {
-        this.changeAnimation = changeAnimation;
+        this.name = changeAnimation.name();
     }
 
     public void setDuration(int duration) {
@@ -0,0 +1,188 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Decoded slides shared by every player of the process. Slides are keyed by the identity of their file, so players
+ * showing the same images decode them once and hold the pixels once. A slide decoded for a large output also serves
+ * every smaller one.
+ *
+ * Slides are reference counted: every <code>acquire</code> is paired with a <code>release</code>, and a slide is
+ * dropped from the store as soon as its last player releases it.
+ */
+public class SlideImageStore {
+    private static SlideImageStore defaultStore;
+
+    private final Map<Object, List<Entry>> entries;
+    private final Map<SlidePyramid, Entry> acquired;
+    private final Map<Object, CompletableFuture<Void>> pending;
+    private long usedBytes;
+
+    private long hits;
+    private long decodes;
+
+    /**
+     * Constructor. Initializes the private variables.
+     */
+    public SlideImageStore() {
+        this.entries = new HashMap<>();
+        this.acquired = new IdentityHashMap<>();
+        this.pending = new HashMap<>();
+    }
+
+    /**
+     * Returns the store shared by the players of the process.
+     *
+     * @return the default store
+     */
+    public static synchronized SlideImageStore getDefault() {
+        if (defaultStore == null)
+            defaultStore = new SlideImageStore();
+        return defaultStore;
+    }
+
+    /**
+     * Returns the decoded slide, sharing the pyramid of another player if one covers the output, or decoding the
+     * file otherwise. If another player is already decoding the same file, waits for it before deciding.
+     *
+     * @param file   image file of the slide
+     * @param width  width of the output the slide is shown in
+     * @param height height of the output the slide is shown in
+     * @return the pyramid of the slide, to be released once the player no longer needs it
+     * @throws IOException if the file cannot be read
+     */
+    public SlidePyramid acquire(File file, int width, int height) throws IOException {
+        return acquire(file, width, height, null);
+    }
+
+    /**
+     * Returns the decoded slide as <code>acquire(File, int, int)</code> does, timing the decode when there is one.
+     * Slides shared from the store take no time worth recording, so they are not counted.
+     *
+     * @param file          image file of the slide
+     * @param width         width of the output the slide is shown in
+     * @param height        height of the output the slide is shown in
+     * @param decodeLatency receives the time spent decoding the file, or null
+     * @return the pyramid of the slide, to be released once the player no longer needs it
+     * @throws IOException if the file cannot be read
+     */
+    public SlidePyramid acquire(File file, int width, int height, LatencyHistogram decodeLatency) throws IOException {
+        Object key = identity(file.toPath());
+        while (true) {
+            CompletableFuture<Void> load;
+            synchronized (this) {
+                Entry entry = find(key, width, height);
+                if (entry != null) {
+                    entry.references++;
+                    hits++;
+                    return entry.pyramid;
+                }
+                load = pending.get(key);
+                if (load == null) {
+                    pending.put(key, new CompletableFuture<>());
+                    break;
+                }
+            }
+            // The pyramid being decoded may or may not cover this output; look again once it is there.
+            load.join();
+        }
+
+        SlidePyramid pyramid = null;
+        long start = System.nanoTime();
+        try {
+            pyramid = SlidePyramid.read(file, width, height);
+            if (decodeLatency != null)
+                decodeLatency.record(System.nanoTime() - start);
+            return pyramid;
+        } finally {
+            CompletableFuture<Void> load;
+            synchronized (this) {
+                load = pending.remove(key);
+                if (pyramid != null) {
+                    Entry entry = new Entry(key, pyramid);
+                    entries.computeIfAbsent(key, k -> new ArrayList<>()).add(entry);
+                    acquired.put(pyramid, entry);
+                    usedBytes += pyramid.getSizeBytes();
+                    decodes++;
+                }
+            }
+            load.complete(null);
+        }
+    }
+
+    /**
+     * Releases a slide acquired from the store. The slide is dropped once every player released it. Slides that do
+     * not come from the store are ignored.
+     *
+     * @param pyramid pyramid returned by <code>acquire</code>
+     */
+    public synchronized void release(SlidePyramid pyramid) {
+        Entry entry = acquired.get(pyramid);
+        if (entry == null || --entry.references > 0)
+            return;
+        acquired.remove(pyramid);
+        List<Entry> versions = entries.get(entry.key);
+        versions.remove(entry);
+        if (versions.isEmpty())
+            entries.remove(entry.key);
+        usedBytes -= pyramid.getSizeBytes();
+    }
+
+    /**
+     * Returns the smallest pyramid of the file that covers the output.
+     */
+    private Entry find(Object key, int width, int height) {
+        List<Entry> versions = entries.get(key);
+        if (versions == null)
+            return null;
+        Entry best = null;
+        for (Entry entry : versions) {
+            if (entry.pyramid.covers(width, height)
+                    && (best == null || entry.pyramid.getSizeBytes() < best.pyramid.getSizeBytes()))
+                best = entry;
+        }
+        return best;
+    }
+
+    /**
+     * Returns the identity of the file: the file key of the filesystem when it has one, so links to the same file
+     * share it, or the real path otherwise. The size and modification time are part of it, so an edited file is
+     * decoded again.
+     */
+    private static Object identity(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        Object file = attributes.fileKey() != null ? attributes.fileKey() : path.toRealPath();
+        return List.of(file, attributes.size(), attributes.lastModifiedTime());
+    }
+
+    /**
+     * Public getters for the store statistics.
+     * @return statistics, respectively to the function.
+     */
+    public synchronized int getSize() { return acquired.size(); }
+    public synchronized long getUsedBytes() { return usedBytes; }
+    public synchronized long getHits() { return hits; }
+    public synchronized long getDecodes() { return decodes; }
+
+    /**
+     * A decoded slide and the number of players holding it.
+     */
+    private static class Entry {
+        private final Object key;
+        private final SlidePyramid pyramid;
+        private int references = 1;
+
+        private Entry(Object key, SlidePyramid pyramid) {
+            this.key = key;
+            this.pyramid = pyramid;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decodes the slides around the current one in the background, so a transition never has to wait for the disk.
+ * The window looks ahead in the direction of navigation and keeps one slide behind for going back.
+ */
+public class SlidePrefetcher {
+    private final SlideCache<?> slideCache;
+    private final int slideCount;
+    private final int lookAhead;
+    private final ExecutorService workers;
+    private final AtomicInteger generation;
+
+    /**
+     * Constructor. Initializes the private variables and starts the worker pool.
+     *
+     * @param slideCache cache the prefetched slides are loaded into
+     * @param slideCount number of slides in the presentation
+     * @param lookAhead  number of slides decoded ahead of the current one
+     * @param threads    number of worker threads
+     */
+    public SlidePrefetcher(SlideCache<?> slideCache, int slideCount, int lookAhead, int threads) {
+        this.slideCache = slideCache;
+        this.slideCount = slideCount;
+        this.lookAhead = Math.min(lookAhead, slideCount - 1);
+        this.generation = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "slide-prefetch");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Moves the prefetch window. Queued loads from the previous window that have not started yet are dropped.
+     *
+     * @param currentSlide index of the slide now on screen
+     * @param direction    1 when moving forward, -1 when moving back
+     */
+    public void update(int currentSlide, int direction) {
+        int current = generation.incrementAndGet();
+        for (int i = 1; i <= lookAhead; i++)
+            submit(currentSlide + direction * i, current);
+        submit(currentSlide - direction, current);
+    }
+
+    private void submit(int slide, int current) {
+        int index = Math.floorMod(slide, slideCount);
+        if (slideCache.contains(index))
+            return;
+        workers.execute(() -> {
+            if (generation.get() == current)
+                slideCache.get(index);
+        });
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    public void shutdown() {
+        generation.incrementAndGet();
+        workers.shutdownNow();
+    }
+}
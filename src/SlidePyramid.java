@@ -0,0 +1,133 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A slide kept at several resolutions, each half the size of the previous one. The full resolution is the source
+ * image fitted into 4K. Only the levels at or below the largest size asked for so far are decoded, so a player in a
+ * small window does not hold 4K pixels; a later request for a smaller output, after a resize or a move to another
+ * display, is served from the nearest level without touching the source file again.
+ */
+public class SlidePyramid {
+    public static final int MAX_WIDTH = 3840;
+    public static final int MAX_HEIGHT = 2160;
+    private static final int MIN_SIZE = 64;
+
+    private final int fullWidth;
+    private final int fullHeight;
+    private final int firstLevel;
+    private final BufferedImage[] levels;
+
+    private SlidePyramid(int fullWidth, int fullHeight, int firstLevel, BufferedImage first) {
+        this.fullWidth = fullWidth;
+        this.fullHeight = fullHeight;
+        this.firstLevel = firstLevel;
+        int count = firstLevel + 1;
+        while (Math.min(levelSize(fullWidth, count), levelSize(fullHeight, count)) >= MIN_SIZE)
+            count++;
+        this.levels = new BufferedImage[count];
+        levels[firstLevel] = first;
+        // Every coarser level is one halving step away from the previous one.
+        for (int level = firstLevel + 1; level < count; level++)
+            levels[level] = ImageScaler.scale(levels[level - 1], levelSize(fullWidth, level), levelSize(fullHeight, level));
+    }
+
+    /**
+     * Decodes the slide at the coarsest level that still covers the output size.
+     *
+     * @param file   image file of the slide
+     * @param width  width of the output the slide is shown in
+     * @param height height of the output the slide is shown in
+     * @return the pyramid of the slide
+     * @throws IOException if the file cannot be read
+     */
+    public static SlidePyramid read(File file, int width, int height) throws IOException {
+        Dimension source = ImageScaler.readSize(file);
+        double scale = Math.min(1.0, Math.min(1.0 * MAX_WIDTH / source.width, 1.0 * MAX_HEIGHT / source.height));
+        int fullWidth = Math.max(1, (int) Math.round(source.width * scale));
+        int fullHeight = Math.max(1, (int) Math.round(source.height * scale));
+        int level = requiredLevel(fullWidth, fullHeight, width, height);
+        BufferedImage first = ImageScaler.read(file, levelSize(fullWidth, level), levelSize(fullHeight, level));
+        return new SlidePyramid(fullWidth, fullHeight, level, first);
+    }
+
+    /**
+     * Builds the pyramid of a slide already decoded, such as one read from a slide bundle. The image is the full
+     * resolution.
+     *
+     * @param image decoded slide
+     * @return the pyramid of the slide
+     */
+    public static SlidePyramid of(BufferedImage image) {
+        return new SlidePyramid(image.getWidth(), image.getHeight(), 0, image);
+    }
+
+    private static int levelSize(int fullSize, int level) {
+        return Math.max(1, (fullSize + (1 << level) - 1) >> level);
+    }
+
+    /**
+     * Returns the coarsest level at least as large as the slide fitted into the output.
+     */
+    private static int requiredLevel(int fullWidth, int fullHeight, int width, int height) {
+        double scale = Math.min(1.0 * width / fullWidth, 1.0 * height / fullHeight);
+        int fittedWidth = (int) Math.round(fullWidth * scale);
+        int fittedHeight = (int) Math.round(fullHeight * scale);
+        int level = 0;
+        while (levelSize(fullWidth, level + 1) >= fittedWidth && levelSize(fullHeight, level + 1) >= fittedHeight
+                && Math.min(levelSize(fullWidth, level + 1), levelSize(fullHeight, level + 1)) >= MIN_SIZE)
+            level++;
+        return level;
+    }
+
+    /**
+     * Checks whether the pyramid holds a level fine enough for the output, or whether the slide has to be decoded
+     * again at a higher resolution.
+     *
+     * @param width  width of the output
+     * @param height height of the output
+     * @return true if the output can be rendered from the pyramid
+     */
+    public boolean covers(int width, int height) {
+        return requiredLevel(fullWidth, fullHeight, width, height) >= firstLevel;
+    }
+
+    /**
+     * Renders the slide for the output: fitted, centered and letterboxed in black. The nearest level at least as
+     * large as the fitted slide is scaled in a single bilinear step.
+     *
+     * @param width  width of the output
+     * @param height height of the output
+     * @return an image of the size of the output, compatible with the screen
+     */
+    public BufferedImage render(int width, int height) {
+        BufferedImage level = levels[Math.max(firstLevel, Math.min(levels.length - 1,
+                requiredLevel(fullWidth, fullHeight, width, height)))];
+        double scale = Math.min(1.0 * width / fullWidth, 1.0 * height / fullHeight);
+        int fittedWidth = Math.max(1, (int) Math.round(fullWidth * scale));
+        int fittedHeight = Math.max(1, (int) Math.round(fullHeight * scale));
+
+        BufferedImage output = ImageScaler.createCompatibleImage(width, height);
+        Graphics2D g2d = output.createGraphics();
+        g2d.setColor(Color.BLACK);
+        g2d.fillRect(0, 0, width, height);
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.drawImage(level, (width - fittedWidth) / 2, (height - fittedHeight) / 2, fittedWidth, fittedHeight, null);
+        g2d.dispose();
+        return output;
+    }
+
+    /**
+     * Returns the size of the decoded levels, counted as four bytes per pixel.
+     *
+     * @return the size in bytes
+     */
+    public long getSizeBytes() {
+        long size = 0;
+        for (BufferedImage level : levels)
+            if (level != null)
+                size += SlideCache.sizeOf(level);
+        return size;
+    }
+}
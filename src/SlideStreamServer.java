@@ -0,0 +1,337 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import javax.xml.stream.XMLStreamException;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plays a presentation offscreen and streams it as Motion JPEG over HTTP on the loopback interface, for signage
+ * displays driven from a headless JVM. The slides follow the interval and transitions of the presentation, looping
+ * at the end, as in the player.
+ *
+ * A single thread renders and encodes each frame once, at the target frame rate, and every connected viewer is sent
+ * the same encoded frame. A still slide is encoded once and sent again until it changes. A viewer that cannot keep
+ * up skips to the newest frame instead of slowing down the others.
+ *
+ * Usage: <code>SlideStreamServer presentation.xml [port] [fps]</code>, then open
+ * <code>http://localhost:port/stream</code>.
+ */
+public class SlideStreamServer implements Closeable {
+    private static final String BOUNDARY = "slideframe";
+    private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int DEFAULT_SLIDE_SECONDS = 5;
+    private static final int SLIDE_CACHE_MB = 64;
+
+    private final SlidesConfig slidesConfig;
+    private final int width;
+    private final int height;
+    private final int fps;
+    private final int slideCount;
+    private final SlideCache<BufferedImage> slideCache;
+    private final HttpServer server;
+    private final ExecutorService clientThreads;
+    private final ScheduledExecutorService renderThread;
+
+    private final BufferedImage frame;
+    private final Graphics2D graphics;
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final ImageWriter jpegWriter;
+    private final ImageWriteParam jpegParam;
+    private long start;
+    private int lastFrame = -1;
+    private int lastStill = -1;
+
+    private final Object frameLock = new Object();
+    private EncodedFrame latest;
+    private volatile boolean closed;
+
+    private final LatencyHistogram encodeLatency = new LatencyHistogram();
+    private final AtomicInteger clients = new AtomicInteger();
+    private volatile long framesEncoded;
+    private volatile long framesPublished;
+
+    /**
+     * Constructor. Initializes the private variables and binds the server to the loopback interface.
+     *
+     * @param slidesConfig presentation to stream
+     * @param width        width of the stream
+     * @param height       height of the stream
+     * @param fps          target frame rate of the stream
+     * @param port         port to listen on, or 0 for any free port
+     * @throws IOException              if the port cannot be bound
+     * @throws IllegalArgumentException if the presentation has no slides or the frame rate is not positive
+     */
+    public SlideStreamServer(SlidesConfig slidesConfig, int width, int height, int fps, int port) throws IOException {
+        // The render thread divides by both; failing there would only cancel its task silently.
+        if (slidesConfig.getSlidesFileList().length == 0)
+            throw new IllegalArgumentException("The presentation has no slides");
+        if (fps <= 0)
+            throw new IllegalArgumentException("The frame rate must be positive: " + fps);
+        this.slidesConfig = slidesConfig;
+        this.width = width;
+        this.height = height;
+        this.fps = fps;
+        this.slideCount = slidesConfig.getSlidesFileList().length;
+        this.slideCache = new SlideCache<>(this::loadSlide, SlideCache::sizeOf, SLIDE_CACHE_MB);
+        // A transition needs both of its slides; at 4K two of them are larger than the default budget.
+        slideCache.setBudgetBytes(Math.max(slideCache.getBudgetBytes(), 2L * width * height * 4));
+        // The JPEG writer takes interleaved bytes as they are; packed ints are converted on every frame.
+        this.frame = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        this.graphics = frame.createGraphics();
+        this.jpegWriter = ImageIO.getImageWritersByFormatName("jpeg").next();
+        this.jpegParam = jpegWriter.getDefaultWriteParam();
+        jpegParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        jpegParam.setCompressionQuality(0.85f);
+
+        this.clientThreads = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stream-client");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.renderThread = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stream-render");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/stream", this::stream);
+        server.setExecutor(clientThreads);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: SlideStreamServer presentation.xml [port] [fps]");
+            System.exit(2);
+        }
+        System.setProperty("java.awt.headless", "true");
+        FileLoad fileLoad;
+        try {
+            fileLoad = new FileLoad(new File(args[0]));
+        } catch (XMLStreamException e) {
+            fileLoad = null;
+        }
+        if (fileLoad == null || !fileLoad.isValid()) {
+            System.err.println("Not a valid presentation: " + args[0]);
+            System.exit(1);
+        }
+        if (fileLoad.getSlidesConfig().getSlidesFileList().length == 0) {
+            System.err.println("The presentation has no slides: " + args[0]);
+            System.exit(1);
+        }
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8090;
+        int fps = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        SlideStreamServer streamServer = new SlideStreamServer(fileLoad.getSlidesConfig(), SlidesPlayer.IMAGE_WIDTH,
+                SlidesPlayer.IMAGE_HEIGHT, fps, port);
+        streamServer.start();
+        System.out.println("Streaming on http://localhost:" + streamServer.getPort() + "/stream");
+    }
+
+    /**
+     * Starts the presentation and accepts viewers.
+     */
+    public void start() {
+        start = System.nanoTime();
+        renderFrame();
+        renderThread.scheduleAtFixedRate(this::renderFrame, 0, TimeUnit.SECONDS.toNanos(1) / fps,
+                TimeUnit.NANOSECONDS);
+        server.start();
+    }
+
+    /**
+     * Stops the presentation and disconnects the viewers.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (frameLock) {
+            frameLock.notifyAll();
+        }
+        renderThread.shutdownNow();
+        server.stop(0);
+        clientThreads.shutdownNow();
+        slideCache.clear();
+    }
+
+    /**
+     * Renders and publishes the frame due now. Runs on the render thread; frames missed while the thread was late
+     * are skipped, so the presentation keeps its timing.
+     */
+    private void renderFrame() {
+        // Rounded, so a tick running slightly early or late still lands on its own frame.
+        long second = TimeUnit.SECONDS.toNanos(1);
+        int frameNumber = (int) (((System.nanoTime() - start) * fps + second / 2) / second);
+        if (frameNumber == lastFrame)
+            return;
+        lastFrame = frameNumber;
+        int interval = slidesConfig.getSlideIntervalSeconds() > 0 ? slidesConfig.getSlideIntervalSeconds()
+                : DEFAULT_SLIDE_SECONDS;
+        int segmentFrames = interval * fps;
+        int segment = frameNumber / segmentFrames;
+        int slide = segment % slideCount;
+        int frameInSegment = frameNumber % segmentFrames;
+
+        SlideEffect effect = effectOf(slide);
+        int transitionFrames = segment == 0 ? 0 : Math.min(segmentFrames, effect.getDuration() * fps);
+        boolean still = frameInSegment >= transitionFrames;
+        long frameStart = System.nanoTime();
+        byte[] data;
+        try {
+            if (still && slide == lastStill && latest != null) {
+                // The slide has not changed since the last frame; its encoding is reused.
+                data = latest.data;
+            } else {
+                BufferedImage target = slideCache.get(slide);
+                if (still) {
+                    graphics.drawImage(target, 0, 0, null);
+                } else {
+                    BufferedImage source = slideCache.get(Math.floorMod(slide - 1, slideCount));
+                    effect.getRenderer().render(source, target, 1.0 * frameInSegment / transitionFrames, graphics,
+                            0, 0, width, height);
+                }
+                data = encode();
+                framesEncoded++;
+                encodeLatency.record(System.nanoTime() - frameStart);
+            }
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return;
+        }
+        lastStill = still ? slide : -1;
+        publish(data);
+    }
+
+    private SlideEffect effectOf(int slide) {
+        SlideEffect[] effects = slidesConfig.getSlideEffects();
+        return effects[(effects.length - 1 + slide) % effects.length];
+    }
+
+    private byte[] encode() throws IOException {
+        output.reset();
+        try (ImageOutputStream stream = new MemoryCacheImageOutputStream(output)) {
+            jpegWriter.setOutput(stream);
+            jpegWriter.write(null, new IIOImage(frame, null, null), jpegParam);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Makes the frame the newest one and wakes the viewers. The part header is built here, once for every viewer.
+     */
+    private void publish(byte[] data) {
+        synchronized (frameLock) {
+            long sequence = latest == null ? 1 : latest.sequence + 1;
+            latest = new EncodedFrame(sequence, data, System.nanoTime());
+            framesPublished++;
+            frameLock.notifyAll();
+        }
+    }
+
+    /**
+     * Sends the stream to one viewer until it disconnects. Runs on a thread of its own.
+     */
+    private void stream(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "multipart/x-mixed-replace; boundary=" + BOUNDARY);
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache, no-store");
+        exchange.sendResponseHeaders(200, 0);
+        clients.incrementAndGet();
+        try (OutputStream out = new BufferedOutputStream(exchange.getResponseBody(), 64 * 1024)) {
+            long sent = 0;
+            while (!closed) {
+                EncodedFrame next;
+                synchronized (frameLock) {
+                    while (!closed && (latest == null || latest.sequence == sent))
+                        frameLock.wait();
+                    if (closed)
+                        return;
+                    next = latest;
+                }
+                out.write(next.header);
+                out.write(next.data);
+                out.write(CRLF);
+                out.flush();
+                sent = next.sequence;
+            }
+        } catch (IOException e) {
+            // The viewer disconnected.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            clients.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private BufferedImage loadSlide(int index) {
+        File file = new File(slidesConfig.getSlidesFileList()[index]);
+        SlideImageStore store = SlideImageStore.getDefault();
+        try {
+            // Players of the same process showing the slide share its decoded pyramid.
+            SlidePyramid pyramid = store.acquire(file, width, height);
+            try {
+                return pyramid.render(width, height);
+            } finally {
+                store.release(pyramid);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+    }
+
+    /**
+     * Public getter for private variable.
+     *
+     * @return port the server listens on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Public getters for the stream statistics.
+     * @return statistics, respectively to the function.
+     */
+    public LatencyHistogram getEncodeLatency() { return encodeLatency; }
+    public long getFramesEncoded() { return framesEncoded; }
+    public long getFramesPublished() { return framesPublished; }
+    public int getClientCount() { return clients.get(); }
+
+    /**
+     * An encoded frame with its multipart header. <code>X-Frame-Nanos</code> is the <code>System.nanoTime()</code>
+     * of the server when the frame was published, for measuring latency from the same process.
+     */
+    private static class EncodedFrame {
+        private final long sequence;
+        private final byte[] data;
+        private final byte[] header;
+
+        private EncodedFrame(long sequence, byte[] data, long published) {
+            this.sequence = sequence;
+            this.data = data;
+            this.header = ("--" + BOUNDARY + "\r\nContent-Type: image/jpeg\r\nContent-Length: " + data.length
+                    + "\r\nX-Frame-Sequence: " + sequence + "\r\nX-Frame-Nanos: " + published + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+}
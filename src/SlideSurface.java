@@ -0,0 +1,181 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Render surface of the player. Slides are converted once to images compatible with the screen, and every frame
+ * is composited into an accelerated <code>VolatileImage</code> back buffer before being shown in a single blit.
+ */
+public class SlideSurface extends JComponent {
+    private static final int DEFAULT_REFRESH_RATE = 60;
+
+    private final Map<BufferedImage, Image> compatibleImages;
+    private final FrameStats frameStats;
+    private VolatileImage backBuffer;
+
+    private volatile BufferedImage image;
+    private volatile BufferedImage nextImage;
+    private volatile TransitionRenderer transitionRenderer;
+    private volatile double animationRatio;
+    private volatile TransitionFrameBuffer transitionFrames;
+
+    /**
+     * Constructor. Initializes the private variables.
+     */
+    public SlideSurface() {
+        compatibleImages = new WeakHashMap<>();
+        frameStats = new FrameStats(getFrameNanos());
+        setOpaque(true);
+        setDoubleBuffered(false);
+    }
+
+    /**
+     * Returns the time between two frames at the refresh rate of the default screen.
+     *
+     * @return the frame period in nanoseconds
+     */
+    public static long getFrameNanos() {
+        int refreshRate = DEFAULT_REFRESH_RATE;
+        if (!GraphicsEnvironment.isHeadless()) {
+            int screenRate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                    .getDisplayMode().getRefreshRate();
+            if (screenRate != DisplayMode.REFRESH_RATE_UNKNOWN)
+                refreshRate = screenRate;
+        }
+        return TimeUnit.SECONDS.toNanos(1) / refreshRate;
+    }
+
+    /**
+     * Public setter for private variable.
+     *
+     * @param image slide shown when no transition is running
+     */
+    public void setImage(BufferedImage image) {
+        this.image = image;
+    }
+
+    /**
+     * Public setter for private variable.
+     *
+     * @param nextImage Next image to be shown, or null when no transition is running.
+     */
+    public void setNextImage(BufferedImage nextImage) {
+        this.nextImage = nextImage;
+    }
+
+    /**
+     * Public setter for private variable.
+     *
+     * @param slideEffect type of transition.
+     */
+    public void setNextAnimation(SlideEffect slideEffect) {
+        this.transitionRenderer = slideEffect.getRenderer();
+    }
+
+    /**
+     * Public setter for private variable.
+     *
+     * @param animationRatio progress of the transition, between 0 and 1
+     */
+    public void setAnimationRatio(double animationRatio) {
+        this.animationRatio = animationRatio;
+    }
+
+    /**
+     * Public setter for private variable.
+     *
+     * @param transitionFrames pre-rendered frames of the upcoming transition, or null to render every frame live
+     */
+    public void setTransitionFrames(TransitionFrameBuffer transitionFrames) {
+        this.transitionFrames = transitionFrames;
+    }
+
+    /**
+     * Public getter for private variable.
+     *
+     * @return frame timing of the surface
+     */
+    public FrameStats getFrameStats() {
+        return frameStats;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        long frameStart = System.nanoTime();
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        if (gc == null) {
+            render((Graphics2D) g, null);
+            return;
+        }
+        do {
+            if (backBuffer == null || backBuffer.getWidth() != getWidth() || backBuffer.getHeight() != getHeight()
+                    || backBuffer.validate(gc) == VolatileImage.IMAGE_INCOMPATIBLE) {
+                if (backBuffer != null)
+                    backBuffer.flush();
+                backBuffer = gc.createCompatibleVolatileImage(Math.max(1, getWidth()), Math.max(1, getHeight()));
+            }
+            Graphics2D g2d = backBuffer.createGraphics();
+            render(g2d, gc);
+            g2d.dispose();
+            g.drawImage(backBuffer, 0, 0, null);
+        } while (backBuffer.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+        frameStats.record(frameStart, System.nanoTime() - frameStart);
+    }
+
+    /**
+     * Draws the current slide, or the current frame of the running transition. A frame pre-rendered for the
+     * transition is blitted as is; otherwise the frame is rendered live.
+     *
+     * @param g2d graphics to draw into
+     * @param gc  configuration of the screen, or null if the surface is not displayed yet
+     */
+    private void render(Graphics2D g2d, GraphicsConfiguration gc) {
+        g2d.setColor(getBackground());
+        g2d.fillRect(0, 0, getWidth(), getHeight());
+        BufferedImage current = image;
+        if (current == null)
+            return;
+        int width = current.getWidth();
+        int height = current.getHeight();
+        int x = (getWidth() - width) / 2;
+        int y = (getHeight() - height) / 2;
+
+        BufferedImage next = nextImage;
+        TransitionRenderer renderer = transitionRenderer;
+        double ratio = animationRatio;
+        if (next == null || renderer == null || ratio <= 0) {
+            g2d.drawImage(compatible(current, gc), x, y, null);
+            return;
+        }
+        TransitionFrameBuffer frames = transitionFrames;
+        BufferedImage frame = frames != null ? frames.getFrame(current, next, ratio) : null;
+        if (frame != null) {
+            g2d.drawImage(frame, x, y, null);
+            return;
+        }
+        renderer.render(compatible(current, gc), compatible(next, gc), ratio, g2d, x, y, width, height);
+    }
+
+    /**
+     * Returns a copy of the slide in the pixel layout of the screen, converting it on first use only.
+     */
+    private Image compatible(BufferedImage slide, GraphicsConfiguration gc) {
+        if (gc == null || slide.getColorModel().equals(gc.getColorModel(slide.getTransparency())))
+            return slide;
+        Image converted = compatibleImages.get(slide);
+        if (converted == null) {
+            BufferedImage copy = gc.createCompatibleImage(slide.getWidth(), slide.getHeight(), slide.getTransparency());
+            Graphics2D g2d = copy.createGraphics();
+            g2d.drawImage(slide, 0, 0, null);
+            g2d.dispose();
+            compatibleImages.put(slide, copy);
+            converted = copy;
+        }
+        return converted;
+    }
+}
@@ -1,18 +1,16 @@
 import javax.imageio.ImageIO;
-import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.UnsupportedAudioFileException;
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -54,6 +52,7 @@ public class SlidesConfigView extends JFrame {
 
     private WavComponent wavComponent;
     private ThumbnailComponent thumbnailComponent;
+    private FolderWatcher folderWatcher;
     private SlideComponent slideComponent;
 
     /**
@@ -92,7 +91,7 @@ public class SlidesConfigView extends JFrame {
         boolean manualChange = manualChangeRadioButton.isSelected();
         int slideIntervalSeconds = (Integer)intervalInSecondsSpinner.getValue();
 
-        String[] slidesFileList = slideComponent.getElements().stream().map(SelectableElement::getData).toArray(String[]::new);
+        String[] slidesFileList = slideComponent.getElements().stream().map(ImageThumbnail::getData).toArray(String[]::new);
         SlideEffect[] slidesEffectList = slideComponent.getElements().stream().map(ImageWithEffectThumbnail::getSlideEffect).toArray(SlideEffect[]::new);
         return new SlidesConfig(slidesFolder, slidesFileList, slidesEffectList, soundFiles, manualChange, slideIntervalSeconds);
     }
@@ -243,6 +242,103 @@ public class SlidesConfigView extends JFrame {
             }
         });
 
+        JMenuItem exportBundleItem = new JMenuItem("Export bundle...");
+        exportBundleItem.addActionListener(e -> {
+            SlidesConfig slidesConfig = getSlidesConfig();
+            if (slidesConfig.getSlidesFileList().length == 0) {
+                JOptionPane.showMessageDialog(null, "No Images Present");
+                return;
+            }
+            JFileChooser fileChooser = new JFileChooser();
+            fileChooser.setFileFilter(new FileNameExtensionFilter("Slide bundle", "slides"));
+            fileChooser.setCurrentDirectory(new File("."));
+            fileChooser.setDialogTitle("Export slide bundle");
+            if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+                File bundleFile = fileChooser.getSelectedFile();
+                if (!bundleFile.getName().toLowerCase().endsWith(".slides"))
+                    bundleFile = new File(bundleFile.getPath() + ".slides");
+                File target = bundleFile;
+                exportBundleItem.setEnabled(false);
+                // Scaling every slide takes a while, keep the window responsive.
+                Thread exporter = new Thread(() -> {
+                    String message = "Bundle exported";
+                    try {
+                        SlideBundle.export(slidesConfig, target, SlidesPlayer.IMAGE_WIDTH, SlidesPlayer.IMAGE_HEIGHT);
+                    } catch (Exception exception) {
+                        exception.printStackTrace();
+                        message = "Could not export bundle";
+                    }
+                    String result = message;
+                    SwingUtilities.invokeLater(() -> {
+                        exportBundleItem.setEnabled(true);
+                        JOptionPane.showMessageDialog(this, result);
+                    });
+                }, "bundle-export");
+                exporter.setDaemon(true);
+                exporter.start();
+            }
+        });
+
+        JMenuItem playBundleItem = new JMenuItem("Play bundle...");
+        playBundleItem.addActionListener(e -> {
+            JFileChooser fileChooser = new JFileChooser();
+            fileChooser.setFileFilter(new FileNameExtensionFilter("Slide bundle", "slides"));
+            fileChooser.setCurrentDirectory(new File("."));
+            fileChooser.setDialogTitle("Open slide bundle");
+            if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+                try {
+                    SlideBundle slideBundle = SlideBundle.open(fileChooser.getSelectedFile());
+                    if (slideBundle.getSlideCount() == 0) {
+                        slideBundle.close();
+                        JOptionPane.showMessageDialog(null, "No Images Present");
+                        return;
+                    }
+                    setVisible(false);
+                    new SlidesPlayer(this, slideBundle);
+                } catch (Exception exception) {
+                    exception.printStackTrace();
+                    JOptionPane.showMessageDialog(null, "Could not open bundle");
+                }
+            }
+        });
+
+        JMenuItem exportVideoItem = new JMenuItem("Export video...");
+        exportVideoItem.addActionListener(e -> {
+            SlidesConfig slidesConfig = getSlidesConfig();
+            if (slidesConfig.getSlidesFileList().length == 0) {
+                JOptionPane.showMessageDialog(null, "No Images Present");
+                return;
+            }
+            JFileChooser fileChooser = new JFileChooser();
+            fileChooser.setFileFilter(new FileNameExtensionFilter("Motion JPEG video", "avi"));
+            fileChooser.setCurrentDirectory(new File("."));
+            fileChooser.setDialogTitle("Export video");
+            if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+                File videoFile = fileChooser.getSelectedFile();
+                if (!videoFile.getName().toLowerCase().endsWith(".avi"))
+                    videoFile = new File(videoFile.getPath() + ".avi");
+                File target = videoFile;
+                exportVideoItem.setEnabled(false);
+                Thread exporter = new Thread(() -> {
+                    String message = "Video exported";
+                    try {
+                        new VideoExporter(slidesConfig, SlidesPlayer.IMAGE_WIDTH, SlidesPlayer.IMAGE_HEIGHT, 30)
+                                .exportVideo(target);
+                    } catch (Exception exception) {
+                        exception.printStackTrace();
+                        message = "Could not export video";
+                    }
+                    String result = message;
+                    SwingUtilities.invokeLater(() -> {
+                        exportVideoItem.setEnabled(true);
+                        JOptionPane.showMessageDialog(this, result);
+                    });
+                }, "video-export");
+                exporter.setDaemon(true);
+                exporter.start();
+            }
+        });
+
         JMenuItem openFolderItem = new JMenuItem("Open image folder...");
         openFolderItem.addActionListener(e -> {
             slidesFolderChooser.setAcceptAllFileFilterUsed(false);
@@ -265,6 +361,10 @@ public class SlidesConfigView extends JFrame {
         fileMenu.add(saveMenuItem);
         fileMenu.add(loadMenuItem);
         fileMenu.addSeparator();
+        fileMenu.add(exportBundleItem);
+        fileMenu.add(playBundleItem);
+        fileMenu.add(exportVideoItem);
+        fileMenu.addSeparator();
         fileMenu.add(openFolderItem);
         fileMenu.add(musicFileItem);
         menuBar.add(fileMenu);
@@ -290,6 +390,20 @@ public class SlidesConfigView extends JFrame {
         };
 
         wavComponent.setApplyOnUpdate(musicTracksUpdater);
+        // A probed track only changes its own row.
+        wavComponent.setApplyOnElementUpdate(index -> {
+            // The track may have been removed while it was being probed.
+            if (index >= wavComponent.getElements().size())
+                return;
+            WavThumbnail wavThumbnail = wavComponent.getElements().get(index);
+            for (Component component : musicPanel.getComponents()) {
+                TrackPanel trackPanel = (TrackPanel) component;
+                if (trackPanel.getWavThumbnail() == wavThumbnail) {
+                    trackPanel.updateTrackLength();
+                    musicPanel.repaint();
+                }
+            }
+        });
         autoChangeRadioButton.addActionListener(e -> musicTracksUpdater.run());
         intervalInSecondsSpinner.addChangeListener(e -> musicTracksUpdater.run());
     }
@@ -324,35 +438,112 @@ public class SlidesConfigView extends JFrame {
             folderPathTextField = folderPath.toString();
 
             // And process the images within the directory.
-            thumbnailComponent.processSelectedPaths(
-                    Arrays.stream(slidesNames).map(
-                            name -> Paths.get(folderPath.getAbsolutePath(), name)).collect(Collectors.toList())
-            );
+            List<Path> slidePaths = Arrays.stream(slidesNames).map(
+                    name -> Paths.get(folderPath.getAbsolutePath(), name)).collect(Collectors.toList());
+            thumbnailComponent.processSelectedPaths(slidePaths);
+            watchFolder(folderPath, slidePaths, filter);
+        }
+    }
+
+    /**
+     * Watches the folder shown in the image browser, so images added, changed or deleted while the editor is open
+     * show up without opening the folder again.
+     */
+    private void watchFolder(File folderPath, List<Path> slidePaths, FileNameExtensionFilter filter) {
+        if (folderWatcher != null)
+            folderWatcher.close();
+        folderWatcher = null;
+        try {
+            folderWatcher = new FolderWatcher(folderPath.toPath().toAbsolutePath(),
+                    path -> filter.accept(path.toFile()) && (path.toString().endsWith(".jpg") || path.toString().endsWith(".jpeg")),
+                    slidePaths, (created, modified, deleted) -> {
+                        thumbnailComponent.applyFolderChanges(created, modified, deleted);
+                        slideComponent.refreshThumbnails(modified.stream().map(Path::toString).collect(Collectors.toList()));
+                    });
+        } catch (IOException e) {
+            e.printStackTrace();
         }
     }
 
-    public static class ImageThumbnail extends SelectableElement {
-        private ImageIcon icon;
+    public static class ImageThumbnail implements Selectable {
+        private final String data;
+        private boolean selected;
+        private int index;
 
-        public ImageThumbnail(int index, String data, SelectableElementPanel<? extends SelectableElement> container) {
-            super(index, data, container);
+        public ImageThumbnail(int index, String data) {
+            this.index = index;
+            this.data = data;
+        }
 
-            try {
-                // Read the image,
-                BufferedImage img = ImageIO.read(new File(data));
-                // Scale it,
-                this.icon = new ImageIcon(img.getScaledInstance(50, 50, Image.SCALE_SMOOTH));
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-            add(new JLabel(icon));
+        public String getData() {
+            return data;
+        }
+
+        public boolean isSelected() {
+            return selected;
+        }
+
+        public void setSelected(boolean selected) {
+            this.selected = selected;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
         }
     }
 
     public static class ThumbnailComponent extends SelectableElementPanel<ImageThumbnail> {
+        private final ThumbnailStrip strip;
+
         public ThumbnailComponent(JPanel flowPanel) {
             super(flowPanel);
-            flowPanel.setPreferredSize(new Dimension(100, 1000));
+            strip = new ThumbnailStrip(this, flowPanel, true);
+        }
+
+        @Override
+        public void processSelectedPaths(Collection<Path> paths) {
+            // Thumbnails of the previous folder are no longer needed.
+            strip.clearThumbnails();
+            super.processSelectedPaths(paths);
+        }
+
+        /**
+         * Applies the changes of the watched folder: deleted images are removed, changed ones decoded again and new
+         * ones added at the end.
+         */
+        public void applyFolderChanges(List<Path> created, List<Path> modified, List<Path> deleted) {
+            removeElements(deleted.stream().map(Path::toString).collect(Collectors.toList()));
+            strip.refreshThumbnails(modified.stream().map(Path::toString).collect(Collectors.toList()));
+            addElements(created.stream().map(Path::toString).collect(Collectors.toList()));
+        }
+
+        @Override
+        public void onElementSelectedChanged(boolean isSelected, int index) {
+            super.onElementSelectedChanged(isSelected, index);
+            strip.repaint();
+        }
+
+        // The strip draws the elements itself, so there are no components to add or remove.
+        @Override
+        protected void addToView(ImageThumbnail element, int index) {
+        }
+
+        @Override
+        protected void removeFromView(int index) {
+        }
+
+        @Override
+        protected void clearView() {
+        }
+
+        @Override
+        protected void refreshView() {
+            strip.revalidate();
+            strip.repaint();
         }
     }
 
@@ -368,29 +559,23 @@ public class SlidesConfigView extends JFrame {
             }
         }
 
-        private final int wavLength;
+        private int wavLength;
 
-        public WavThumbnail(int index, String data, SelectableElementPanel<? extends SelectableElement> container) {
+        public WavThumbnail(int index, String data, SelectableElementPanel<? extends Selectable> container) {
             super(index, data, container);
             setMaximumSize(new Dimension(400, 70));
-            File fl = new File(data);
 
-            int wavLength = 10;
-            try {
-                System.out.println(fl.getPath());
-                JLabel label = new JLabel(fl.getCanonicalPath(), wavIcon, SwingConstants.LEFT);
-                label.setFont(new Font("Serif", Font.PLAIN, 12));
-                add(label);
-                File file = new File(data);
-                AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(file);
-                AudioFormat format = audioInputStream.getFormat();
-                long frames = audioInputStream.getFrameLength();
-                double durationInSeconds = (frames + 0.0) / format.getFrameRate();
-                wavLength = Math.toIntExact(Math.round(durationInSeconds));
-            } catch (UnsupportedAudioFileException | IOException e) {
-                e.printStackTrace();
-            }
-            this.wavLength = wavLength;
+            JLabel label = new JLabel(new File(data).getAbsolutePath(), wavIcon, SwingConstants.LEFT);
+            label.setFont(new Font("Serif", Font.PLAIN, 12));
+            add(label);
+
+            // Assume 10 seconds until the header has been read in the background.
+            wavLength = 10;
+            AudioMetadataService.probe(data, metadata -> {
+                wavLength = Math.toIntExact(Math.round(metadata.getDurationSeconds()));
+                label.setToolTipText(metadata.getFormat().toString());
+                container.onElementUpdated(getIndex());
+            });
         }
 
         public int getWavLength() {
@@ -407,8 +592,8 @@ public class SlidesConfigView extends JFrame {
     public static class ImageWithEffectThumbnail extends ImageThumbnail {
         private SlideEffect slideEffect;
 
-        public ImageWithEffectThumbnail(int index, String data, SelectableElementPanel<? extends SelectableElement> container) {
-            super(index, data, container);
+        public ImageWithEffectThumbnail(int index, String data) {
+            super(index, data);
             slideEffect = new SlideEffect(SlideEffect.ChangeAnimation.None, 1);
         }
 
@@ -419,10 +604,12 @@ public class SlidesConfigView extends JFrame {
 
     public static class SlideComponent extends ReorderableElementPanel<ImageWithEffectThumbnail> {
         private JButton fxButton;
+        private final ThumbnailStrip strip;
 
         public SlideComponent(JPanel flowPanel, JButton startButton, JButton beforeButton, JButton afterButton, JButton finishButton, JButton removeButton,
                               JButton fxButton) {
             super(flowPanel, startButton, beforeButton, afterButton, finishButton, removeButton);
+            this.strip = new ThumbnailStrip(this, flowPanel, false);
             this.fxButton = fxButton;
             this.fxButton.setEnabled(false);
             fxButton.addActionListener(e -> {
@@ -438,37 +625,78 @@ public class SlidesConfigView extends JFrame {
 
         public void setElementEffect(SlideEffect effect, int index) { elements.get(index).slideEffect = effect; }
 
+        public void refreshThumbnails(Collection<String> paths) { strip.refreshThumbnails(paths); }
+
         @Override
         public void onElementSelectedChanged(boolean isSelected, int index) {
             super.onElementSelectedChanged(isSelected, index);
 
             if (fxButton != null)
                 fxButton.setEnabled(isSelected);
+            strip.repaint();
+        }
+
+        @Override
+        protected void addToView(ImageWithEffectThumbnail element, int index) {
+        }
+
+        @Override
+        protected void removeFromView(int index) {
+        }
+
+        @Override
+        protected void clearView() {
+        }
+
+        @Override
+        protected void refreshView() {
+            strip.revalidate();
+            strip.repaint();
         }
     }
 
     public static class TrackPanel extends JPanel{
+        private final WavThumbnail wavThumbnail;
+        private final int slideLength;
+        private final JPanel panel;
+        private final JLabel trackLengthLabel;
+
         public TrackPanel(String shortName, WavThumbnail wavThumbnail, int slideLength) {
+            this.wavThumbnail = wavThumbnail;
+            this.slideLength = slideLength;
             FlowLayout flowLayout = new FlowLayout();
             flowLayout.setHgap(0);
             JLabel trackNameLabel = new JLabel(shortName);
             trackNameLabel.setPreferredSize(new Dimension(70, 20));
             trackNameLabel.setMaximumSize(new Dimension(70, 20));
-            int trackLength = wavThumbnail.wavLength;
-            int panelLength = Math.toIntExact(Math.round((1.0 * trackLength / slideLength) * 63));
-            JPanel panel = new JPanel();
-            panel.setPreferredSize(new Dimension(panelLength, 20));
+            panel = new JPanel();
             panel.setBackground(Color.GREEN);
             add(trackNameLabel);
             add(panel);
-            int trackLengthMins = trackLength / 60;
-            int trackLengthSecs = trackLength % 60;
-            JLabel trackLengthLabel = new JLabel(MessageFormat.format("{0}:{1}",trackLengthMins, String.format("%2d", trackLengthSecs)));
+            trackLengthLabel = new JLabel();
             trackLengthLabel.setPreferredSize(new Dimension(50, 20));
             trackLengthLabel.setMaximumSize(new Dimension(50, 20));
             add(trackLengthLabel);
-            setMaximumSize(new Dimension(140 + panelLength, 30));
             setAlignmentX( Component.LEFT_ALIGNMENT );
+            updateTrackLength();
+        }
+
+        /**
+         * Resizes the bar and the length label to the current length of the track.
+         */
+        public void updateTrackLength() {
+            int trackLength = wavThumbnail.wavLength;
+            int panelLength = Math.toIntExact(Math.round((1.0 * trackLength / slideLength) * 63));
+            panel.setPreferredSize(new Dimension(panelLength, 20));
+            int trackLengthMins = trackLength / 60;
+            int trackLengthSecs = trackLength % 60;
+            trackLengthLabel.setText(MessageFormat.format("{0}:{1}",trackLengthMins, String.format("%2d", trackLengthSecs)));
+            setMaximumSize(new Dimension(140 + panelLength, 30));
+            revalidate();
+        }
+
+        public WavThumbnail getWavThumbnail() {
+            return wavThumbnail;
         }
     }
 }
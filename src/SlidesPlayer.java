@@ -1,44 +1,67 @@
-import sun.awt.image.ToolkitImage;
-
-import javax.imageio.ImageIO;
-import javax.sound.sampled.*;
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
-import java.awt.event.ComponentListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class SlidesPlayer extends JFrame {
-    private static final int IMAGE_WIDTH = 600;
-    private static final int IMAGE_HEIGHT = 400;
-    private static final int ANIMATION_STEPS = 20;
+    static final int IMAGE_WIDTH = 600;
+    static final int IMAGE_HEIGHT = 400;
+    private static final int SLIDE_CACHE_MB = Integer.getInteger("slidesPlayer.cacheMb", 64);
+    private static final int PYRAMID_CACHE_MB = Integer.getInteger("slidesPlayer.pyramidCacheMb", 128);
+    private static final int PREFETCH_AHEAD = Integer.getInteger("slidesPlayer.prefetchAhead", 3);
+    private static final int PREFETCH_THREADS = 2;
+    private static final boolean PRERENDER_TRANSITIONS = !Boolean.getBoolean("slidesPlayer.liveTransitions");
+    private static final int TRANSITION_BUFFER_MB = Integer.getInteger("slidesPlayer.transitionBufferMb", 32);
 
     private JPanel mainPanel;
     private JButton backButton;
     private JButton pausePlayButton;
     private JButton forwardButton;
-    private JLabel showLabel;
+    private SlideSurface slideSurface;
     private JButton backButton1;
 
-    private final List<ImageIcon> imageIcons;
-    private final List<ToolkitImage> images;
-    private final List<SlideEffect> effects;
+    private final SlideCache<BufferedImage> slideCache;
+    private final SlideCache<SlidePyramid> pyramids;
+    private final SlidePrefetcher slidePrefetcher;
+    private final TransitionFrameBuffer transitionFrames;
+    private final SlideEffect[] effects;
+    private final int slideCount;
     private final SlidesConfig slidesConfig;
     private final SlidesConfigView slidesConfigView;
-    private int currentSlide;
+    private final SlideBundle slideBundle;
+    private volatile int currentSlide;
+
+    private volatile int outputWidth = IMAGE_WIDTH;
+    private volatile int outputHeight = IMAGE_HEIGHT;
+    private final AtomicBoolean resizePending = new AtomicBoolean();
+    private Rectangle windowedBounds;
+
+    private final PlaybackClock playbackClock;
+    private volatile ScheduledFuture<?> transition;
+    private int transitionTarget;
+    private long transitionStart;
+    private long transitionNanos;
+
+    private volatile AudioEngine audioEngine;
+    private volatile boolean isPlayed;
+    private volatile boolean isClosed;
 
-    private AutoChangeThread autoChangeThread;
-    private WavPlayerThread wavPlayerThread;
-    private boolean isPlayed;
-    private AnimationIcon animationIcon;
+    private final PlayerMetrics metrics;
+    private final LatencyHistogram decodeLatency = new LatencyHistogram();
+    private volatile long transitionCount;
+    private volatile long totalDroppedFrames;
 
     /**
      * Constructor. Initializes the private variables.
@@ -46,58 +69,62 @@ public class SlidesPlayer extends JFrame {
      * @param slidesConfigView
      */
     public SlidesPlayer(SlidesConfigView slidesConfigView) {
+        this(slidesConfigView, slidesConfigView.getSlidesConfig(), null);
+    }
+
+    /**
+     * Constructor. Plays the presentation of a slide bundle, reading the slides from the bundle instead of decoding
+     * the image files. The bundle is closed with the player.
+     *
+     * @param slidesConfigView
+     * @param slideBundle the opened bundle
+     */
+    public SlidesPlayer(SlidesConfigView slidesConfigView, SlideBundle slideBundle) {
+        this(slidesConfigView, slideBundle.getSlidesConfig(), slideBundle);
+    }
+
+    private SlidesPlayer(SlidesConfigView slidesConfigView, SlidesConfig slidesConfig, SlideBundle slideBundle) {
         setContentPane(mainPanel);
-        setResizable(false);
-        imageIcons = new ArrayList<>();
-        images = new ArrayList<>();
-        effects = new ArrayList<>();
 
         this.slidesConfigView = slidesConfigView;
-        this.slidesConfig = slidesConfigView.getSlidesConfig();
-        for (int i = 0; i < slidesConfig.getSlidesFileList().length; i++) {
-            String slideFileName = slidesConfig.getSlidesFileList()[i];
-            SlideEffect slideEffect = slidesConfig.getSlideEffects()[i];
-            Path imagePath = Paths.get(slideFileName);
-            try {
-                BufferedImage img = ImageIO.read(imagePath.toFile());
-                Image dimg = img.getScaledInstance(IMAGE_WIDTH, IMAGE_HEIGHT, Image.SCALE_SMOOTH);
-                images.add((ToolkitImage) dimg);
-                effects.add(slideEffect);
-                imageIcons.add(new ImageIcon(dimg));
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
+        this.slidesConfig = slidesConfig;
+        this.slideBundle = slideBundle;
+        this.effects = slidesConfig.getSlideEffects();
+        this.slideCount = slidesConfig.getSlidesFileList().length;
+        this.pyramids = new SlideCache<>(this::loadSlide, SlidePyramid::getSizeBytes, PYRAMID_CACHE_MB);
+        pyramids.setEvictionListener(SlideImageStore.getDefault()::release);
+        this.slideCache = new SlideCache<>(this::renderSlide, SlideCache::sizeOf, SLIDE_CACHE_MB);
+        this.slidePrefetcher = new SlidePrefetcher(slideCache, slideCount, PREFETCH_AHEAD, PREFETCH_THREADS);
+        this.transitionFrames = new TransitionFrameBuffer(TRANSITION_BUFFER_MB);
+        sizeCaches(outputWidth, outputHeight);
+        this.playbackClock = new PlaybackClock(1000L * slidesConfig.getSlideIntervalSeconds(), () -> navigate(1));
 
         configureWidgets();
+        if (PRERENDER_TRANSITIONS)
+            slideSurface.setTransitionFrames(transitionFrames);
+        this.metrics = new PlayerMetrics(this);
+        metrics.register();
 
         currentSlide = 0;
-        animationIcon = new AnimationIcon(images.get(0));
-        showLabel.setIcon(animationIcon);
         if (slidesConfig.isManualChange()) {
             isPlayed = false;
             pausePlayButton.setEnabled(false);
         } else {
             isPlayed = true;
             pausePlayButton.setText("Pause");
-            autoChangeThread = new AutoChangeThread();
-            autoChangeThread.start();
         }
+        // The window opens right away; the first slide is decoded on the clock thread, ahead of any navigation.
+        playbackClock.execute(this::showFirstSlide);
 
         if (slidesConfig.getSoundFiles() != null && slidesConfig.getSoundFiles().length > 0) {
-            wavPlayerThread = new WavPlayerThread(slidesConfig.getSoundFiles());
-            wavPlayerThread.start();
+            audioEngine = new AudioEngine(slidesConfig.getSoundFiles());
+            audioEngine.start();
         }
 
         addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
-                if (autoChangeThread != null)
-                    autoChangeThread.interrupt();
-                if (wavPlayerThread != null) {
-                    wavPlayerThread.stopped = true;
-                    wavPlayerThread.interrupt();
-                }
+                close();
             }
         });
         setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
@@ -110,340 +137,339 @@ public class SlidesPlayer extends JFrame {
      */
     private void configureWidgets() {
         backButton.addActionListener(e -> {
+            playbackClock.execute(() -> navigate(-1));
             if (isPlayed)
-                autoChangeThread.interrupt();
-            int previousSlide = (currentSlide + imageIcons.size() - 1) % imageIcons.size();
-            Thread animation = new Thread(() -> {
-                try {
-                    applyAnimation(previousSlide);
-                    currentSlide = previousSlide;
-                    updateScene();
-                } catch (InterruptedException ex) {
-                    ex.printStackTrace();
-                }
-            });
-            animation.start();
-            if (isPlayed) {
-                autoChangeThread = new AutoChangeThread();
-                autoChangeThread.start();
-            }
+                playbackClock.start();
         });
 
         forwardButton.addActionListener(e -> {
+            playbackClock.execute(() -> navigate(1));
             if (isPlayed)
-                autoChangeThread.interrupt();
-            int nextSlide = (currentSlide + 1) % imageIcons.size();
-            Thread animation = new Thread(() -> {
-                try {
-                    applyAnimation(nextSlide);
-                    currentSlide = nextSlide;
-                    updateScene();
-                } catch (InterruptedException ex) {
-                    ex.printStackTrace();
-                }
-            });
-            animation.start();
-            if (isPlayed) {
-                autoChangeThread = new AutoChangeThread();
-                autoChangeThread.start();
-            }
+                playbackClock.start();
         });
 
         pausePlayButton.addActionListener(e -> {
             if (isPlayed) {
                 pausePlayButton.setText("Play");
-                if (autoChangeThread != null)
-                    autoChangeThread.interrupt();
-                if (wavPlayerThread != null) {
-                    wavPlayerThread.paused = true;
-                }
+                playbackClock.stop();
+                if (audioEngine != null)
+                    audioEngine.setPaused(true);
             } else {
                 pausePlayButton.setText("Pause");
-                autoChangeThread = new AutoChangeThread();
-                autoChangeThread.start();
-                if (slidesConfig.getSoundFiles() != null) {
-                   if (wavPlayerThread == null){
-                       wavPlayerThread = new WavPlayerThread(slidesConfig.getSoundFiles());
-                       wavPlayerThread.start();
-                   }else{
-                       wavPlayerThread.paused = false;
-                   }
+                playbackClock.start();
+                if (slidesConfig.getSoundFiles() != null && slidesConfig.getSoundFiles().length > 0) {
+                    if (audioEngine == null) {
+                        audioEngine = new AudioEngine(slidesConfig.getSoundFiles());
+                        audioEngine.start();
+                    } else {
+                        audioEngine.setPaused(false);
+                    }
                 }
             }
             isPlayed = !isPlayed;
         });
 
+        slideSurface.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                // A drag fires many resizes; the clock thread only handles the latest size.
+                if (resizePending.compareAndSet(false, true))
+                    playbackClock.execute(SlidesPlayer.this::resize);
+            }
+        });
+
+        slideSurface.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2)
+                    setFullScreen(!isFullScreen());
+            }
+        });
+
+        JRootPane rootPane = getRootPane();
+        rootPane.registerKeyboardAction(e -> setFullScreen(!isFullScreen()),
+                KeyStroke.getKeyStroke(KeyEvent.VK_F11, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+        rootPane.registerKeyboardAction(e -> setFullScreen(false),
+                KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+
         backButton1.addActionListener(e -> {
             slidesConfigView.setVisible(true);
-            if (autoChangeThread != null)
-                autoChangeThread.interrupt();
-            if (wavPlayerThread != null) {
-                wavPlayerThread.stopped = true;
-                wavPlayerThread.interrupt();
-            }
+            close();
             this.setVisible(false);
         });
     }
 
     /**
-     * Updates the frame with new image.
+     * Stops the playback and releases everything the player holds, whether the window is closed or the player is
+     * left for the configuration view. Slides still being loaded are released once they are loaded.
      */
-    private void updateScene() {
-        animationIcon.setImage(images.get(currentSlide));
-        showLabel.revalidate();
-        showLabel.repaint();
+    private void close() {
+        if (isClosed)
+            return;
+        isClosed = true;
+        playbackClock.shutdown();
+        if (audioEngine != null)
+            audioEngine.stop();
+        slidePrefetcher.shutdown();
+        transitionFrames.shutdown();
+        slideCache.close();
+        pyramids.close();
+        closeBundle();
+        metrics.unregister();
     }
 
+    private boolean isFullScreen() {
+        return getGraphicsConfiguration().getDevice().getFullScreenWindow() == this;
+    }
 
     /**
-     * Algorighm for moving to next image.
+     * Shows the player on the whole screen it is on, or puts it back in its window. The frame has to be disposed to
+     * change its decorations; the slides are rendered again at the new size once the surface is resized.
      *
-     * @param nextSlide integer representing the index of the next image to be shown
-     * @throws InterruptedException
+     * @param fullScreen true to fill the screen, false to restore the window
      */
-    private void applyAnimation(int nextSlide) throws InterruptedException {
-        animationIcon.setNextImage(images.get(nextSlide));
-        SlideEffect effect = effects.get((effects.size() - 1 + nextSlide)%effects.size());
-        animationIcon.setNextAnimation(effect);
-        int steps = ANIMATION_STEPS * effect.getDuration();
-        for (int i = 1; i <= steps; i++) {
-            animationIcon.setAnimationRatio(1.0 * i / (steps));
-            updateScene();
-            Thread.sleep(50);
+    private void setFullScreen(boolean fullScreen) {
+        if (fullScreen == isFullScreen())
+            return;
+        GraphicsDevice device = getGraphicsConfiguration().getDevice();
+        dispose();
+        if (fullScreen) {
+            windowedBounds = getBounds();
+            setUndecorated(true);
+            device.setFullScreenWindow(this);
+        } else {
+            device.setFullScreenWindow(null);
+            setUndecorated(false);
+            if (windowedBounds != null)
+                setBounds(windowedBounds);
         }
-        animationIcon.setNextImage(null);
+        setVisible(true);
     }
 
     /**
-     * Algorithm for auto-changing the photo
+     * Renders the slides at the new size of the surface. Runs on the playback clock thread; the running transition
+     * is completed first, since its images have the old size.
      */
-    private class AutoChangeThread extends Thread {
-        public AutoChangeThread() {
-            super(() -> {
-                while (true) {
-                    try {
-                        Thread.sleep(1000 * slidesConfig.getSlideIntervalSeconds());
-                        int nextSlide = (currentSlide + 1) % imageIcons.size();
-                        applyAnimation(nextSlide);
-                        currentSlide = nextSlide;
-                        updateScene();
-                    } catch (InterruptedException e) {
-                        break;
-                    }
-                }
-            });
-        }
+    private void resize() {
+        resizePending.set(false);
+        int width = slideSurface.getWidth();
+        int height = slideSurface.getHeight();
+        if (width <= 0 || height <= 0 || (width == outputWidth && height == outputHeight))
+            return;
+        finishTransition();
+        transitionFrames.cancel();
+        outputWidth = width;
+        outputHeight = height;
+        slideCache.clear();
+        sizeCaches(width, height);
+        updateScene();
+        slidePrefetcher.update(currentSlide, 1);
+        prepareTransition(Math.floorMod(currentSlide + 1, slideCount));
     }
 
     /**
-     * Thread class for playing the music
+     * Grows the cache budgets so the prefetch window, the slides ahead plus the current one and the one behind, fits
+     * at the output size; otherwise a large output evicts the slides being prefetched before they are shown. The
+     * configured budgets are kept as the minimum.
+     *
+     * @param width  width of the output
+     * @param height height of the output
      */
-    public class WavPlayerThread extends Thread {
-        private boolean stopped, paused;
-        private String[] soundFileNames;
-        private int lastPosition = 0;
-        private long bytesRead = 0;
-
-        /**
-         * Constructor. Reads the audio file and plays it.
-         */
-        public WavPlayerThread(String[] soundFileNames) {
-            stopped = false;
-            this.soundFileNames = soundFileNames;
-        }
+    private void sizeCaches(int width, int height) {
+        long window = PREFETCH_AHEAD + 2;
+        long slideBytes = (long) width * height * 4;
+        slideCache.setBudgetBytes(Math.max(SLIDE_CACHE_MB * 1024L * 1024L, window * slideBytes));
+        // A pyramid holds the level covering the output and the smaller ones below it, about 4/3 of the slide.
+        pyramids.setBudgetBytes(Math.max(PYRAMID_CACHE_MB * 1024L * 1024L, window * slideBytes * 4 / 3));
+    }
 
-        public void run() {
-            while (!stopped) {
-                for (int i = 0; i < soundFileNames.length && !stopped; i++) {
-                    File soundFile = new File(soundFileNames[i]);
-                    AudioInputStream audioInputStream = null;
-                    try {
-                        audioInputStream = AudioSystem.getAudioInputStream(soundFile);
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                    AudioFormat audioFormat = audioInputStream.getFormat();
-                    SourceDataLine line = null;
-                    DataLine.Info info = new DataLine.Info(SourceDataLine.class, audioFormat);
-                    try {
-                        line = (SourceDataLine) AudioSystem.getLine(info);
-                        line.open(audioFormat);
-                    } catch (LineUnavailableException e) {
-                        e.printStackTrace();
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                    line.start();
-                    int nBytesRead = 0;
-                    byte[] abData = new byte[128000];
-                    try {
-                        audioInputStream.skip(bytesRead);
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                    while (!stopped && nBytesRead != -1 && paused == false) {
-                        try {
-                            try {
-                                Thread.sleep(100);
-                                nBytesRead = audioInputStream.read(abData, 0, abData.length);
-                                bytesRead+=nBytesRead;
-                            } catch (InterruptedException ie) {
-                                audioInputStream.close();
-                                break;
-                            }
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                        }
-                        if (nBytesRead >= 0)
-                            line.write(abData, 0, nBytesRead);
-                    }
-                    line.drain();
-                    line.close();
-                    try {
-                        Thread.sleep(1000);
-                    } catch (InterruptedException e) {
-                        break;
-                    }
-                }
-            }
+    private void closeBundle() {
+        if (slideBundle == null)
+            return;
+        try {
+            slideBundle.close();
+        } catch (IOException e) {
+            e.printStackTrace();
         }
+    }
 
-        public boolean isPaused() {
-            return paused;
+    /**
+     * Renders the slide at the size of the surface, from the nearest level of its pyramid.
+     *
+     * @param index index of the slide in the presentation
+     * @return the slide fitted and centered in an image of the size of the surface
+     */
+    private BufferedImage renderSlide(int index) {
+        int width = outputWidth;
+        int height = outputHeight;
+        SlidePyramid pyramid = pyramids.get(index);
+        if (!pyramid.covers(width, height)) {
+            // The surface grew past the levels decoded so far.
+            pyramids.remove(index);
+            pyramid = pyramids.get(index);
         }
+        return pyramid.render(width, height);
+    }
 
-        public void setPaused(boolean paused) {
-            this.paused = paused;
+    /**
+     * Returns the slide rendered at the current size of the surface. A slide rendered while the surface was being
+     * resized is rendered again.
+     */
+    private BufferedImage displayImage(int index) {
+        BufferedImage image = slideCache.get(index);
+        if (image.getWidth() != outputWidth || image.getHeight() != outputHeight) {
+            slideCache.remove(index);
+            image = slideCache.get(index);
         }
+        return image;
+    }
 
-        public int getLastPosition() {
-            return lastPosition;
+    /**
+     * Reads the slide image from disk into its pyramid, decoding only the levels the surface needs. The pyramid is
+     * shared with the other players showing the same image, and released to the store when it leaves the cache.
+     * Slides of a bundle are copied out of the bundle at the size it was made for.
+     *
+     * Only actual decodes, and copies out of a bundle, are recorded in the decode latency; a pyramid shared by the
+     * store would dilute its tail with near-zero samples.
+     *
+     * @param index index of the slide in the presentation
+     * @return the pyramid of the slide, or one of a blank image if the file could not be read
+     */
+    private SlidePyramid loadSlide(int index) {
+        try {
+            if (slideBundle != null) {
+                long start = System.nanoTime();
+                BufferedImage image = slideBundle.readSlide(index);
+                decodeLatency.record(System.nanoTime() - start);
+                return SlidePyramid.of(image);
+            }
+            Path imagePath = Paths.get(slidesConfig.getSlidesFileList()[index]);
+            return SlideImageStore.getDefault().acquire(imagePath.toFile(), outputWidth, outputHeight, decodeLatency);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return SlidePyramid.of(ImageScaler.createCompatibleImage(IMAGE_WIDTH, IMAGE_HEIGHT));
         }
+    }
 
-        public void setLastPosition(int lastPosition) {
-            this.lastPosition = lastPosition;
-        }
+    /**
+     * Shows the first slide once it is decoded and starts prefetching the next ones. Runs on the playback clock
+     * thread, so the interval of the first slide only starts once it is on screen.
+     */
+    private void showFirstSlide() {
+        updateScene();
+        slidePrefetcher.update(currentSlide, 1);
+        prepareTransition(Math.floorMod(currentSlide + 1, slideCount));
+        if (isPlayed)
+            playbackClock.start();
+    }
 
-        public long getBytesRead() {
-            return bytesRead;
-        }
+    /**
+     * Starts pre-rendering the transition from the current slide to the given one. The transition to the next slide
+     * is prepared while the current one is shown; the effect <code>None</code> only shows the current slide, so
+     * there is nothing worth pre-rendering.
+     *
+     * @param nextSlide index of the slide the transition leads to
+     */
+    private void prepareTransition(int nextSlide) {
+        if (!PRERENDER_TRANSITIONS)
+            return;
+        SlideEffect effect = effectOf(nextSlide);
+        if (SlideEffect.ChangeAnimation.None.name().equals(effect.getName()) || effect.getDuration() <= 0)
+            return;
+        int frameCount = (int) (TimeUnit.SECONDS.toNanos(effect.getDuration()) / SlideSurface.getFrameNanos());
+        transitionFrames.prepare(this::displayImage, currentSlide, nextSlide, effect, frameCount, outputWidth,
+                outputHeight);
+    }
 
-        public void setBytesRead(long bytesRead) {
-            this.bytesRead = bytesRead;
-        }
+    private SlideEffect effectOf(int slide) {
+        return effects[(effects.length - 1 + slide) % effects.length];
+    }
+
+    /**
+     * Updates the frame with new image.
+     */
+    private void updateScene() {
+        slideSurface.setImage(displayImage(currentSlide));
+        slideSurface.repaint();
     }
 
+
     /**
-     * Class for animation.
+     * Starts the transition to the neighbouring slide. Runs on the playback clock thread; a transition still in
+     * progress is completed first.
+     *
+     * @param direction 1 to move to the next slide, -1 to move to the previous one
      */
-    private static class AnimationIcon extends ImageIcon {
-        private ToolkitImage nextImage;
-        private double animationRatio;
-        private SlideEffect slideEffect;
-
-        /**
-         * Public constructor.
-         *
-         * @param image Call parent class constructor
-         */
-        public AnimationIcon(Image image) {
-            super(image);
-        }
+    private void navigate(int direction) {
+        finishTransition();
+        int nextSlide = Math.floorMod(currentSlide + direction, slideCount);
+        slidePrefetcher.update(nextSlide, direction);
+        prepareTransition(nextSlide);
+        slideSurface.setNextImage(displayImage(nextSlide));
+        SlideEffect effect = effectOf(nextSlide);
+        slideSurface.setNextAnimation(effect);
+        slideSurface.setAnimationRatio(0);
+        slideSurface.getFrameStats().reset();
+        transitionTarget = nextSlide;
+        transitionStart = System.nanoTime();
+        transitionNanos = TimeUnit.SECONDS.toNanos(effect.getDuration());
+        transition = playbackClock.scheduleAtFixedRate(this::stepTransition, SlideSurface.getFrameNanos());
+    }
 
-        /**
-         * Public setter for private variable.
-         *
-         * @param nextImage Next image to be shown.
-         */
-        public void setNextImage(ToolkitImage nextImage) {
-            this.nextImage = nextImage;
+    /**
+     * Algorithm for moving to next image. Called on every frame of the transition, the ratio follows the time
+     * elapsed since it started rather than the number of frames shown.
+     */
+    private void stepTransition() {
+        if (transition == null)
+            return;
+        double ratio = Math.min(1.0, 1.0 * (System.nanoTime() - transitionStart) / Math.max(1, transitionNanos));
+        if (ratio >= 1.0) {
+            finishTransition();
+            return;
         }
+        slideSurface.setAnimationRatio(ratio);
+        slideSurface.repaint();
+    }
 
-        /**
-         * Public setter for private variable.
-         *
-         * @param animationRatio Ratio of animation (duration?)
-         */
-        public void setAnimationRatio(double animationRatio) {
-            this.animationRatio = animationRatio;
-        }
+    /**
+     * Ends the running transition, if any, and shows its target slide.
+     */
+    private void finishTransition() {
+        if (transition == null)
+            return;
+        transition.cancel(false);
+        transition = null;
+        slideSurface.setNextImage(null);
+        currentSlide = transitionTarget;
+        updateScene();
+        transitionCount++;
+        totalDroppedFrames += slideSurface.getFrameStats().getDroppedFrames();
+        prepareTransition(Math.floorMod(currentSlide + 1, slideCount));
+    }
 
-        /**
-         * Public setter for private variable.
-         *
-         * @param slideEffect type of transition.
-         */
-        public void setNextAnimation(SlideEffect slideEffect) {
-            this.slideEffect = slideEffect;
-        }
+    /**
+     * Public getters for the metrics of the player.
+     * @return metrics, respectively to the function.
+     */
+    int getCurrentSlide() { return currentSlide; }
+    int getSlideCount() { return slideCount; }
+    SlideCache<BufferedImage> getSlideCache() { return slideCache; }
+    TransitionFrameBuffer getTransitionFrames() { return transitionFrames; }
+    FrameStats getFrameStats() { return slideSurface.getFrameStats(); }
+    LatencyHistogram getDecodeLatency() { return decodeLatency; }
+    AudioEngine getAudioEngine() { return audioEngine; }
+    long getTransitionCount() { return transitionCount; }
+    long getTotalDroppedFrames() { return totalDroppedFrames; }
 
-        /**
-         * Actual animation algorithm.
-         *
-         * @param c
-         * @param g
-         * @param x
-         * @param y
-         */
-        @Override
-        public void paintIcon(Component c, Graphics g, int x, int y) {
-            super.paintIcon(c, g, x, y);
-            Graphics2D g2d = (Graphics2D) g.create();
-            if (nextImage != null) {
-                BufferedImage bufferedImage = nextImage.getBufferedImage();
-                BufferedImage sub;
-                if (slideEffect.getChangeAnimation() != SlideEffect.ChangeAnimation.Cross &&
-                        slideEffect.getChangeAnimation() != SlideEffect.ChangeAnimation.None) {
-                    int xx = 0;
-                    int yy = 0;
-                    int width = 0;
-                    int height = 0;
-                    switch (slideEffect.getChangeAnimation()) {
-                        case WipeLeft:
-                            xx = Math.toIntExact(Math.round(IMAGE_WIDTH * (1 - animationRatio)));
-                            yy = 0;
-                            width = Math.toIntExact(Math.round(IMAGE_WIDTH * animationRatio));
-                            height = IMAGE_HEIGHT;
-                            break;
-
-                        case WipeRight:
-                            xx = 0;
-                            yy = 0;
-                            width = Math.toIntExact(Math.round(IMAGE_WIDTH * animationRatio));
-                            height = IMAGE_HEIGHT;
-                            break;
-                        case WipeUp:
-                            xx = 0;
-                            yy = Math.toIntExact(Math.round(IMAGE_HEIGHT * (1 - animationRatio)));
-                            width = IMAGE_WIDTH;
-                            height = Math.toIntExact(Math.round(IMAGE_HEIGHT * animationRatio));
-                            break;
-                        case WipeDown:
-                            xx = 0;
-                            yy = 0;
-                            width = IMAGE_WIDTH;
-                            height = Math.toIntExact(Math.round(IMAGE_HEIGHT * animationRatio));
-                            break;
-                    }
-                    sub = bufferedImage.getSubimage(xx, yy, width, height);
-                    g2d.drawImage(sub, xx, yy, null);
-                } else if (slideEffect.getChangeAnimation() == SlideEffect.ChangeAnimation.Cross) {
-                    int width = Math.toIntExact(Math.round(IMAGE_WIDTH * animationRatio / 2));
-                    int height = Math.toIntExact(Math.round(IMAGE_HEIGHT * animationRatio / 2));
-                    BufferedImage topLeft = bufferedImage.getSubimage(0, 0, width, height);
-                    g2d.drawImage(topLeft, 0, 0, null);
-
-                    BufferedImage topRight = bufferedImage.getSubimage(IMAGE_WIDTH - width, 0, width, height);
-                    g2d.drawImage(topRight, IMAGE_WIDTH - width, 0, null);
-
-                    BufferedImage bottomLeft = bufferedImage.getSubimage(0, IMAGE_HEIGHT - height, width, height);
-                    g2d.drawImage(bottomLeft, 0, IMAGE_HEIGHT - height, null);
-
-                    BufferedImage bottomRight = bufferedImage.getSubimage(IMAGE_WIDTH - width, IMAGE_HEIGHT - height, width, height);
-                    g2d.drawImage(bottomRight, IMAGE_WIDTH - width, IMAGE_HEIGHT - height, null);
-                }
-            }
-            g2d.dispose();
-        }
+    /**
+     * Returns the state of the player: Stopped, Transition, Playing or Paused.
+     */
+    String getPlaybackState() {
+        if (isClosed)
+            return "Stopped";
+        if (transition != null)
+            return "Transition";
+        return isPlayed ? "Playing" : "Paused";
     }
 }
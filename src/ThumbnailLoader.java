@@ -0,0 +1,62 @@
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Decodes thumbnails on a worker pool sized to the number of cores and hands them to the Swing event thread.
+ */
+public final class ThumbnailLoader {
+    private static final ExecutorService workers = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "thumbnail-loader");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private ThumbnailLoader() {
+    }
+
+    /**
+     * Queues the thumbnail for decoding. Once it is ready, or once decoding failed, the consumer is called on the
+     * event thread, unless the returned future was cancelled in the meantime.
+     *
+     * @param path     path of the image file
+     * @param width    width of the thumbnail
+     * @param height   height of the thumbnail
+     * @param onLoaded receives the decoded thumbnail on the event thread, or null if the image cannot be read
+     * @return future that can be cancelled to drop the job
+     */
+    public static Future<BufferedImage> load(String path, int width, int height, Consumer<BufferedImage> onLoaded) {
+        FutureTask<BufferedImage> task = new FutureTask<BufferedImage>(() -> read(new File(path), width, height)) {
+            @Override
+            protected void done() {
+                if (isCancelled())
+                    return;
+                BufferedImage thumbnail = null;
+                try {
+                    thumbnail = get();
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                BufferedImage loaded = thumbnail;
+                SwingUtilities.invokeLater(() -> {
+                    if (!isCancelled())
+                        onLoaded.accept(loaded);
+                });
+            }
+        };
+        workers.execute(task);
+        return task;
+    }
+
+    private static BufferedImage read(File file, int width, int height) throws Exception {
+        ThumbnailStore store = ThumbnailStore.getDefault();
+        if (store != null)
+            return store.getThumbnail(file, width, height);
+        return ImageScaler.read(file, width, height);
+    }
+}
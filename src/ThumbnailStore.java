@@ -0,0 +1,148 @@
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Persistent thumbnail cache on the local filesystem. Thumbnails are keyed by the image path, the thumbnail size and
+ * the modification time of the image, so an edited image gets a new thumbnail. When the store grows past its size
+ * cap, the least recently used thumbnails are deleted.
+ */
+public class ThumbnailStore {
+    private static final long DEFAULT_CAP_MB = Long.getLong("slidesPlayer.thumbnailCacheMb", 128);
+    private static ThumbnailStore defaultStore;
+
+    private final Path directory;
+    private final long capBytes;
+    private long usedBytes;
+
+    /**
+     * Constructor. Creates the store directory if needed and measures its current size.
+     *
+     * @param directory directory the thumbnails are kept in
+     * @param capBytes  maximum total size of the stored thumbnails
+     * @throws IOException if the directory cannot be created
+     */
+    public ThumbnailStore(Path directory, long capBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.capBytes = capBytes;
+        for (File file : listThumbnails())
+            usedBytes += file.length();
+    }
+
+    /**
+     * Returns the store shared by the application, in <code>~/.slidesplayer/thumbnails</code>.
+     *
+     * @return the default store, or null if its directory cannot be created
+     */
+    public static synchronized ThumbnailStore getDefault() {
+        if (defaultStore == null) {
+            try {
+                Path directory = Paths.get(System.getProperty("user.home"), ".slidesplayer", "thumbnails");
+                defaultStore = new ThumbnailStore(directory, DEFAULT_CAP_MB * 1024 * 1024);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return defaultStore;
+    }
+
+    /**
+     * Returns the thumbnail of the image, reading it from the store or generating and storing it.
+     *
+     * @param image  image file
+     * @param width  width of the thumbnail
+     * @param height height of the thumbnail
+     * @return the thumbnail
+     * @throws IOException if the image cannot be read
+     */
+    public BufferedImage getThumbnail(File image, int width, int height) throws IOException {
+        Path stored = directory.resolve(key(image, width, height) + ".png");
+        if (Files.isRegularFile(stored)) {
+            try {
+                BufferedImage thumbnail = ImageIO.read(stored.toFile());
+                if (thumbnail != null) {
+                    // Touch the thumbnail so eviction sees it as recently used.
+                    stored.toFile().setLastModified(System.currentTimeMillis());
+                    return thumbnail;
+                }
+            } catch (IOException e) {
+                // A damaged entry is regenerated below.
+            }
+        }
+
+        BufferedImage thumbnail = ImageScaler.read(image, width, height);
+        try {
+            save(stored, thumbnail);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return thumbnail;
+    }
+
+    private void save(Path stored, BufferedImage thumbnail) throws IOException {
+        Path temp = Files.createTempFile(directory, "thumbnail", ".tmp");
+        try {
+            ImageIO.write(thumbnail, "png", temp.toFile());
+            long size = Files.size(temp);
+            // The replaced entry is measured and swapped under the same lock as the accounting, so two threads
+            // saving the same thumbnail cannot both count it as new.
+            synchronized (this) {
+                long previous = Files.isRegularFile(stored) ? Files.size(stored) : 0;
+                Files.move(temp, stored, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                usedBytes += size - previous;
+                if (usedBytes > capBytes)
+                    evict();
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Deletes the least recently used thumbnails until the store is down to 90% of its cap.
+     */
+    private void evict() {
+        File[] thumbnails = listThumbnails();
+        Arrays.sort(thumbnails, Comparator.comparingLong(File::lastModified));
+        for (File thumbnail : thumbnails) {
+            if (usedBytes <= capBytes * 9 / 10)
+                break;
+            long size = thumbnail.length();
+            if (thumbnail.delete())
+                usedBytes -= size;
+        }
+    }
+
+    private File[] listThumbnails() {
+        File[] thumbnails = directory.toFile().listFiles((dir, name) -> name.endsWith(".png"));
+        return thumbnails == null ? new File[0] : thumbnails;
+    }
+
+    private static String key(File image, int width, int height) throws IOException {
+        String identity = image.getCanonicalPath() + '|' + width + 'x' + height + '|' + image.lastModified()
+                + '|' + image.length();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(identity.getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder();
+            for (byte b : digest)
+                key.append(String.format("%02x", b));
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Public getters for the store statistics.
+     * @return statistics, respectively to the function.
+     */
+    public synchronized long getUsedBytes() { return usedBytes; }
+    public long getCapBytes() { return capBytes; }
+}
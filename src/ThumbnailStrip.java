@@ -0,0 +1,267 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Virtualized view of the images of a <code>SelectableElementPanel</code>. The tiles have a fixed size, so the
+ * position of every tile is computed rather than laid out, and only the tiles in the visible part of the strip are
+ * painted. Their thumbnails are loaded when they are first painted and kept in a small LRU cache; loads of tiles
+ * scrolled out of view before they finished are cancelled.
+ *
+ * The strip either lays the tiles out in a single row, or wraps them in rows as wide as the viewport.
+ */
+public class ThumbnailStrip extends JComponent implements Scrollable {
+    static final int THUMBNAIL_SIZE = 50;
+    private static final int PADDING = 5;
+    private static final int TILE_SIZE = THUMBNAIL_SIZE + 2 * PADDING;
+    private static final int GAP = 5;
+    private static final int CACHED_THUMBNAILS = 512;
+    private static final Image placeholder = createPlaceholder();
+    private static final BufferedImage broken = createBroken();
+
+    private final SelectableElementPanel<? extends Selectable> panel;
+    private final boolean wrap;
+    private final Map<String, BufferedImage> thumbnails;
+    private final Map<String, Future<BufferedImage>> loading;
+
+    /**
+     * Constructor. Initializes the private variables and replaces the flow panel in its scroll pane.
+     *
+     * @param panel     panel holding the elements shown
+     * @param flowPanel panel the elements used to be added to; the strip takes its place
+     * @param wrap      true to wrap the tiles in rows, false to show them in a single row
+     */
+    public ThumbnailStrip(SelectableElementPanel<? extends Selectable> panel, JPanel flowPanel, boolean wrap) {
+        this.panel = panel;
+        this.wrap = wrap;
+        this.thumbnails = new LinkedHashMap<String, BufferedImage>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, BufferedImage> eldest) {
+                return size() > CACHED_THUMBNAILS;
+            }
+        };
+        this.loading = new HashMap<>();
+        setBackground(flowPanel.getBackground());
+        setOpaque(true);
+
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = indexAt(e.getPoint());
+                if (index < 0)
+                    return;
+                Selectable element = panel.getElements().get(index);
+                element.setSelected(!element.isSelected());
+                panel.onElementSelectedChanged(element.isSelected(), index);
+                repaint();
+            }
+        });
+
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, flowPanel);
+        if (viewport != null) {
+            viewport.setView(this);
+        } else {
+            flowPanel.setLayout(new BorderLayout());
+            flowPanel.add(this);
+        }
+    }
+
+    /**
+     * Cancels the thumbnails still being loaded and drops the cached ones, for when the whole list is replaced.
+     */
+    public void clearThumbnails() {
+        loading.values().forEach(load -> load.cancel(false));
+        loading.clear();
+        thumbnails.clear();
+    }
+
+    /**
+     * Drops the cached thumbnails of the images, so they are decoded again the next time they are shown.
+     *
+     * @param paths paths of the images that changed
+     */
+    public void refreshThumbnails(Collection<String> paths) {
+        for (String path : paths) {
+            thumbnails.remove(path);
+            Future<BufferedImage> load = loading.remove(path);
+            if (load != null)
+                load.cancel(false);
+        }
+        repaint();
+    }
+
+    private int getColumns() {
+        int count = panel.getElements().size();
+        if (!wrap)
+            return Math.max(1, count);
+        int width = getParent() instanceof JViewport ? getParent().getWidth() : getWidth();
+        return Math.max(1, (width - GAP) / (TILE_SIZE + GAP));
+    }
+
+    private int indexAt(Point point) {
+        int columns = getColumns();
+        int column = (point.x - GAP) / (TILE_SIZE + GAP);
+        int row = (point.y - GAP) / (TILE_SIZE + GAP);
+        if (point.x < GAP || point.y < GAP || column >= columns)
+            return -1;
+        if ((point.x - GAP) % (TILE_SIZE + GAP) >= TILE_SIZE || (point.y - GAP) % (TILE_SIZE + GAP) >= TILE_SIZE)
+            return -1;
+        int index = row * columns + column;
+        return index < panel.getElements().size() ? index : -1;
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        int count = panel.getElements().size();
+        int columns = getColumns();
+        int rows = (count + columns - 1) / columns;
+        int visibleColumns = wrap ? columns : count;
+        return new Dimension(GAP + Math.max(1, visibleColumns) * (TILE_SIZE + GAP),
+                GAP + Math.max(1, rows) * (TILE_SIZE + GAP));
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null)
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        List<? extends Selectable> elements = panel.getElements();
+        int columns = getColumns();
+        int firstRow = Math.max(0, (clip.y - GAP) / (TILE_SIZE + GAP));
+        int lastRow = (clip.y + clip.height - GAP) / (TILE_SIZE + GAP);
+        int firstColumn = Math.max(0, (clip.x - GAP) / (TILE_SIZE + GAP));
+        int lastColumn = Math.min(columns - 1, (clip.x + clip.width - GAP) / (TILE_SIZE + GAP));
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int index = row * columns + column;
+                if (index >= elements.size())
+                    break;
+                paintTile(g, elements.get(index), GAP + column * (TILE_SIZE + GAP), GAP + row * (TILE_SIZE + GAP));
+            }
+        }
+        cancelHiddenLoads();
+    }
+
+    private void paintTile(Graphics g, Selectable element, int x, int y) {
+        g.setColor(element.isSelected() ? Color.blue : Color.white);
+        g.fillRect(x, y, TILE_SIZE, TILE_SIZE);
+        g.setColor(Color.BLACK);
+        g.drawRect(x, y, TILE_SIZE - 1, TILE_SIZE - 1);
+
+        Image image = getThumbnail(element.getData());
+        int imageX = x + PADDING + (THUMBNAIL_SIZE - image.getWidth(null)) / 2;
+        int imageY = y + PADDING + (THUMBNAIL_SIZE - image.getHeight(null)) / 2;
+        g.drawImage(image, imageX, imageY, null);
+    }
+
+    /**
+     * Returns the cached thumbnail of the image, or the placeholder while it is being loaded. An image that cannot be
+     * read is shown as broken until its thumbnail is refreshed.
+     */
+    private Image getThumbnail(String path) {
+        BufferedImage thumbnail = thumbnails.get(path);
+        if (thumbnail != null)
+            return thumbnail;
+        if (!loading.containsKey(path)) {
+            // The callback runs on the event thread after the load is stored, so the holder is set by then.
+            AtomicReference<Future<BufferedImage>> load = new AtomicReference<>();
+            load.set(ThumbnailLoader.load(path, THUMBNAIL_SIZE, THUMBNAIL_SIZE, loaded -> {
+                // A load replaced by a newer one, e.g. after a refresh, must not overwrite its result.
+                if (loading.remove(path, load.get())) {
+                    thumbnails.put(path, loaded != null ? loaded : broken);
+                    repaint();
+                }
+            }));
+            loading.put(path, load.get());
+        }
+        return placeholder;
+    }
+
+    /**
+     * Cancels the loads of the thumbnails that are no longer visible, so scrolling quickly through a large folder
+     * does not queue up every image passed on the way.
+     */
+    private void cancelHiddenLoads() {
+        if (loading.isEmpty())
+            return;
+        Rectangle visible = getVisibleRect();
+        List<? extends Selectable> elements = panel.getElements();
+        int columns = getColumns();
+        int first = Math.max(0, (visible.y - GAP) / (TILE_SIZE + GAP)) * columns
+                + (wrap ? 0 : Math.max(0, (visible.x - GAP) / (TILE_SIZE + GAP)));
+        int last = Math.min(elements.size() - 1, wrap
+                ? ((visible.y + visible.height - GAP) / (TILE_SIZE + GAP) + 1) * columns - 1
+                : (visible.x + visible.width - GAP) / (TILE_SIZE + GAP));
+        Set<String> shown = new HashSet<>();
+        for (int i = first; i <= last; i++)
+            shown.add(elements.get(i).getData());
+        for (Iterator<Map.Entry<String, Future<BufferedImage>>> it = loading.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Future<BufferedImage>> entry = it.next();
+            if (!shown.contains(entry.getKey())) {
+                entry.getValue().cancel(false);
+                it.remove();
+            }
+        }
+    }
+
+    private static Image createPlaceholder() {
+        BufferedImage placeholder = new BufferedImage(THUMBNAIL_SIZE, THUMBNAIL_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = placeholder.createGraphics();
+        g2d.setColor(Color.LIGHT_GRAY);
+        g2d.fillRect(0, 0, THUMBNAIL_SIZE, THUMBNAIL_SIZE);
+        g2d.dispose();
+        return placeholder;
+    }
+
+    private static BufferedImage createBroken() {
+        BufferedImage broken = new BufferedImage(THUMBNAIL_SIZE, THUMBNAIL_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = broken.createGraphics();
+        g2d.setColor(Color.LIGHT_GRAY);
+        g2d.fillRect(0, 0, THUMBNAIL_SIZE, THUMBNAIL_SIZE);
+        g2d.setColor(Color.RED);
+        g2d.drawLine(0, 0, THUMBNAIL_SIZE - 1, THUMBNAIL_SIZE - 1);
+        g2d.drawLine(0, THUMBNAIL_SIZE - 1, THUMBNAIL_SIZE - 1, 0);
+        g2d.dispose();
+        return broken;
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return TILE_SIZE + GAP;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return wrap;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+}
@@ -1,25 +1,32 @@
 import javax.swing.*;
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class TransitionForm extends JDialog {
-    private JRadioButton wipeLeftRadioButton;
-    private JRadioButton wipeRightRadioButton;
-    private JRadioButton wipeUpRadioButton;
-    private JRadioButton wipeDownRadioButton;
-    private JRadioButton crossfadeRadioButton;
-    private JRadioButton noneDefaultRadioButton;
+    private static final Map<String, String> LABELS = Map.of(
+            SlideEffect.ChangeAnimation.WipeLeft.name(), "Wipe Left",
+            SlideEffect.ChangeAnimation.WipeRight.name(), "Wipe Right",
+            SlideEffect.ChangeAnimation.WipeUp.name(), "Wipe Up",
+            SlideEffect.ChangeAnimation.WipeDown.name(), "Wipe Down",
+            SlideEffect.ChangeAnimation.Cross.name(), "Crossfade",
+            SlideEffect.ChangeAnimation.None.name(), "None (default)");
+
+    private JPanel effectsPanel;
     private JSpinner transitionLength;
     private JButton confirmButton;
     private JButton cancelButton;
     private JPanel mainPanel;
 
     private final SlideEffect slideEffect;
+    private final Map<String, JRadioButton> radioButtons;
     private boolean canceled;
 
     public TransitionForm(SlideEffect slideEffect) {
         this.slideEffect = slideEffect;
+        this.radioButtons = new LinkedHashMap<>();
 
         setContentPane(mainPanel);
 
@@ -48,45 +55,31 @@ public class TransitionForm extends JDialog {
             dispose();
         });
 
-        switch (slideEffect.getChangeAnimation()) {
-            case WipeDown:
-                wipeDownRadioButton.setSelected(true);
-                break;
-            case WipeLeft:
-                wipeLeftRadioButton.setSelected(true);
-                break;
-            case WipeUp:
-                wipeUpRadioButton.setSelected(true);
-                break;
-            case WipeRight:
-                wipeRightRadioButton.setSelected(true);
-                break;
-            case Cross:
-                crossfadeRadioButton.setSelected(true);
-                break;
-            default:
-                noneDefaultRadioButton.setSelected(true);
+        // One button per registered renderer, so effects registered by name can be chosen as well.
+        effectsPanel.setLayout(new GridLayout(0, 3));
+        ButtonGroup transitionMethods = new ButtonGroup();
+        for (String name : TransitionRenderers.getNames()) {
+            JRadioButton radioButton = new JRadioButton(LABELS.getOrDefault(name, name));
+            transitionMethods.add(radioButton);
+            effectsPanel.add(radioButton);
+            radioButtons.put(name, radioButton);
         }
+        JRadioButton selected = radioButtons.get(slideEffect.getName());
+        if (selected == null)
+            selected = radioButtons.get(SlideEffect.ChangeAnimation.None.name());
+        selected.setSelected(true);
     }
 
     public SlideEffect getSlideEffect() {
         if (canceled) {
             return slideEffect;
         }
-        SlideEffect.ChangeAnimation changeAnimation = SlideEffect.ChangeAnimation.None;
-        if (wipeRightRadioButton.isSelected())
-            changeAnimation = SlideEffect.ChangeAnimation.WipeRight;
-        if (wipeLeftRadioButton.isSelected())
-            changeAnimation = SlideEffect.ChangeAnimation.WipeLeft;
-        if (wipeUpRadioButton.isSelected())
-            changeAnimation = SlideEffect.ChangeAnimation.WipeUp;
-        if (wipeDownRadioButton.isSelected())
-            changeAnimation = SlideEffect.ChangeAnimation.WipeDown;
-        if (crossfadeRadioButton.isSelected())
-            changeAnimation = SlideEffect.ChangeAnimation.Cross;
-        if (noneDefaultRadioButton.isSelected())
-            changeAnimation = SlideEffect.ChangeAnimation.None;
+        String name = SlideEffect.ChangeAnimation.None.name();
+        for (Map.Entry<String, JRadioButton> entry : radioButtons.entrySet()) {
+            if (entry.getValue().isSelected())
+                name = entry.getKey();
+        }
         int duration = Integer.parseInt(transitionLength.getValue().toString());
-        return new SlideEffect(changeAnimation, duration);
+        return new SlideEffect(name, duration);
     }
 }
@@ -0,0 +1,222 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntFunction;
+
+/**
+ * Renders the frames of the upcoming transition ahead of time, on a worker thread, into a ring of reusable images.
+ * The first frames are rendered while the current slide is on screen; once the transition runs, every frame shown
+ * frees its slot and the worker renders the next frame into it. Showing a pre-rendered frame is a single blit.
+ *
+ * A frame that is not ready in time, or a transition between other slides than the prepared one, is reported as
+ * missing and the caller renders it live. So is every frame of an output too large for two frames to fit the budget.
+ */
+public class TransitionFrameBuffer {
+    private static final int MIN_FRAMES = 2;
+    private static final int MAX_FRAMES = 32;
+
+    private final long budgetBytes;
+    private final ExecutorService worker;
+
+    private BufferedImage[] slots = new BufferedImage[0];
+    private int generation;
+    private int sourceIndex = -1;
+    private int targetIndex = -1;
+    private SlideEffect effect;
+    private int width;
+    private int height;
+    private BufferedImage source;
+    private BufferedImage target;
+    private int frameCount;
+    private int ready;
+    private int consumed;
+
+    private long prerenderedFrames;
+    private long liveFrames;
+
+    /**
+     * Constructor. Initializes the private variables and starts the worker thread.
+     *
+     * @param budgetMb maximum size of the ring, in megabytes; the ring holds up to 32 frames, and nothing is
+     *                 pre-rendered if fewer than 2 fit
+     */
+    public TransitionFrameBuffer(int budgetMb) {
+        this.budgetBytes = budgetMb * 1024L * 1024L;
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transition-prerender");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts rendering the frames of a transition, unless the same transition is already prepared. The slides are
+     * fetched on the worker thread.
+     *
+     * @param slides      returns the slide with the given index, at the output size
+     * @param sourceIndex index of the slide being replaced
+     * @param targetIndex index of the slide being revealed
+     * @param effect      effect of the transition
+     * @param frameCount  number of frames of the transition
+     * @param width       width of the output
+     * @param height      height of the output
+     */
+    public synchronized void prepare(IntFunction<BufferedImage> slides, int sourceIndex, int targetIndex,
+                                     SlideEffect effect, int frameCount, int width, int height) {
+        if (sourceIndex == this.sourceIndex && targetIndex == this.targetIndex && effect == this.effect
+                && frameCount == this.frameCount && width == this.width && height == this.height)
+            return;
+        int current = ++generation;
+        this.sourceIndex = sourceIndex;
+        this.targetIndex = targetIndex;
+        this.effect = effect;
+        this.frameCount = Math.max(1, frameCount);
+        this.width = width;
+        this.height = height;
+        source = null;
+        target = null;
+        ready = 0;
+        consumed = 0;
+        notifyAll();
+        worker.execute(() -> render(current, slides));
+    }
+
+    /**
+     * Drops the prepared transition, e.g. when the output size changes.
+     */
+    public synchronized void cancel() {
+        generation++;
+        sourceIndex = -1;
+        targetIndex = -1;
+        source = null;
+        target = null;
+        ready = 0;
+        notifyAll();
+    }
+
+    /**
+     * Returns the pre-rendered frame of the transition at the given progress, and frees the slots of the frames
+     * before it. The frame stays valid until the next call.
+     *
+     * @param source   slide being replaced
+     * @param target   slide being revealed
+     * @param progress progress of the transition, between 0 and 1
+     * @return the frame, or null if it has to be rendered live
+     */
+    public synchronized BufferedImage getFrame(BufferedImage source, BufferedImage target, double progress) {
+        int index = Math.min(frameCount - 1, (int) (progress * frameCount));
+        if (source != this.source || target != this.target || index < consumed || index >= ready) {
+            liveFrames++;
+            return null;
+        }
+        if (index > consumed) {
+            consumed = index;
+            notifyAll();
+        }
+        prerenderedFrames++;
+        return slots[index % slots.length];
+    }
+
+    /**
+     * Renders the frames of the prepared transition, waiting for free slots. Runs on the worker thread.
+     */
+    private void render(int current, IntFunction<BufferedImage> slides) {
+        int sourceIndex;
+        int targetIndex;
+        SlideEffect effect;
+        int frameCount;
+        synchronized (this) {
+            if (current != generation)
+                return;
+            sourceIndex = this.sourceIndex;
+            targetIndex = this.targetIndex;
+            effect = this.effect;
+            frameCount = this.frameCount;
+        }
+        BufferedImage source = slides.apply(sourceIndex);
+        BufferedImage target = slides.apply(targetIndex);
+        int width = target.getWidth();
+        int height = target.getHeight();
+        TransitionRenderer renderer = effect.getRenderer();
+        synchronized (this) {
+            if (current != generation || !allocate(width, height))
+                return;
+            this.source = source;
+            this.target = target;
+        }
+
+        int frame = 0;
+        while (true) {
+            synchronized (this) {
+                // Frames the transition has already passed are skipped.
+                frame = Math.max(frame, consumed);
+                while (current == generation && frame >= consumed + slots.length) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (current != generation || frame >= frameCount)
+                    return;
+            }
+            BufferedImage slot = slots[frame % slots.length];
+            Graphics2D g2d = slot.createGraphics();
+            renderer.render(source, target, 1.0 * frame / frameCount, g2d, 0, 0, width, height);
+            g2d.dispose();
+            synchronized (this) {
+                if (current != generation)
+                    return;
+                ready = ++frame;
+            }
+        }
+    }
+
+    /**
+     * Sizes the ring for frames of the given size, reusing the images when the size did not change.
+     *
+     * @return false if fewer than two frames fit the budget; the ring is then emptied and the transition is rendered
+     * live
+     */
+    private boolean allocate(int width, int height) {
+        long frameBytes = (long) width * height * 4;
+        int capacity = (int) Math.min(MAX_FRAMES, budgetBytes / frameBytes);
+        if (capacity < MIN_FRAMES) {
+            slots = new BufferedImage[0];
+            return false;
+        }
+        if (slots.length == capacity && slots[0].getWidth() == width && slots[0].getHeight() == height)
+            return true;
+        slots = new BufferedImage[capacity];
+        for (int i = 0; i < capacity; i++)
+            slots[i] = ImageScaler.createCompatibleImage(width, height);
+        return true;
+    }
+
+    /**
+     * Public getter for private variable.
+     *
+     * @return number of transition frames shown from the ring
+     */
+    public synchronized long getPrerenderedFrames() {
+        return prerenderedFrames;
+    }
+
+    /**
+     * Public getter for private variable.
+     *
+     * @return number of transition frames rendered live, because they were not ready or not prepared
+     */
+    public synchronized long getLiveFrames() {
+        return liveFrames;
+    }
+
+    /**
+     * Stops the worker thread.
+     */
+    public void shutdown() {
+        cancel();
+        worker.shutdownNow();
+    }
+}
@@ -0,0 +1,44 @@
+import java.awt.*;
+
+/**
+ * Renders one frame of a transition between two slides. Implementations are registered by name in
+ * <code>TransitionRenderers</code>.
+ *
+ * A renderer is called for every frame of a running transition, so it must not allocate: no sub-images, no
+ * temporary buffers and no new graphics contexts. Everything is drawn straight into the destination, which the
+ * caller reuses from frame to frame.
+ */
+public interface TransitionRenderer {
+    /**
+     * Draws the frame of the transition at the given progress.
+     *
+     * @param source      slide being replaced
+     * @param target      slide being revealed
+     * @param progress    progress of the transition, between 0 and 1
+     * @param destination graphics of the frame being composited
+     * @param x           left edge of the slide in the destination
+     * @param y           top edge of the slide in the destination
+     * @param width       width of both slides
+     * @param height      height of both slides
+     */
+    void render(Image source, Image target, double progress, Graphics2D destination, int x, int y, int width,
+                int height);
+
+    /**
+     * Copies a rectangle of the slide to the same position in the destination, without creating a sub-image.
+     *
+     * @param destination graphics of the frame being composited
+     * @param slide       slide to copy from
+     * @param x           left edge of the slide in the destination
+     * @param y           top edge of the slide in the destination
+     * @param sx          left edge of the rectangle in the slide
+     * @param sy          top edge of the rectangle in the slide
+     * @param w           width of the rectangle
+     * @param h           height of the rectangle
+     */
+    static void drawRegion(Graphics2D destination, Image slide, int x, int y, int sx, int sy, int w, int h) {
+        if (w <= 0 || h <= 0)
+            return;
+        destination.drawImage(slide, x + sx, y + sy, x + sx + w, y + sy + h, sx, sy, sx + w, sy + h, null);
+    }
+}
@@ -0,0 +1,103 @@
+import java.awt.*;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registry of the transition renderers, looked up by the name of the effect. The built-in effects are registered
+ * under the names of <code>SlideEffect.ChangeAnimation</code>; registering the same name again replaces them.
+ * Effects are saved and edited by name, so a renderer registered under a new name can be chosen like the built-ins.
+ */
+public final class TransitionRenderers {
+    private static final Map<String, TransitionRenderer> renderers = new LinkedHashMap<>();
+
+    static {
+        register(SlideEffect.ChangeAnimation.WipeLeft.name(), TransitionRenderers::wipeLeft);
+        register(SlideEffect.ChangeAnimation.WipeRight.name(), TransitionRenderers::wipeRight);
+        register(SlideEffect.ChangeAnimation.WipeUp.name(), TransitionRenderers::wipeUp);
+        register(SlideEffect.ChangeAnimation.WipeDown.name(), TransitionRenderers::wipeDown);
+        register(SlideEffect.ChangeAnimation.Cross.name(), TransitionRenderers::cross);
+        register(SlideEffect.ChangeAnimation.None.name(), TransitionRenderers::none);
+    }
+
+    private TransitionRenderers() {
+    }
+
+    /**
+     * Registers a renderer, replacing any renderer registered under the same name.
+     *
+     * @param name     name of the effect
+     * @param renderer renderer of the effect
+     */
+    public static synchronized void register(String name, TransitionRenderer renderer) {
+        renderers.put(name, renderer);
+    }
+
+    /**
+     * Returns the renderer registered under the name, or the renderer of <code>None</code> if there is none.
+     *
+     * @param name name of the effect
+     * @return the renderer
+     */
+    public static synchronized TransitionRenderer get(String name) {
+        TransitionRenderer renderer = renderers.get(name);
+        return renderer != null ? renderer : renderers.get(SlideEffect.ChangeAnimation.None.name());
+    }
+
+    /**
+     * Returns the names of the registered effects, in registration order.
+     *
+     * @return the names of the effects
+     */
+    public static synchronized Set<String> getNames() {
+        return Collections.unmodifiableSet(new LinkedHashMap<>(renderers).keySet());
+    }
+
+    private static void wipeLeft(Image source, Image target, double progress, Graphics2D destination, int x, int y,
+                                 int width, int height) {
+        int revealed = Math.toIntExact(Math.round(width * progress));
+        destination.drawImage(source, x, y, null);
+        TransitionRenderer.drawRegion(destination, target, x, y, width - revealed, 0, revealed, height);
+    }
+
+    private static void wipeRight(Image source, Image target, double progress, Graphics2D destination, int x, int y,
+                                  int width, int height) {
+        int revealed = Math.toIntExact(Math.round(width * progress));
+        destination.drawImage(source, x, y, null);
+        TransitionRenderer.drawRegion(destination, target, x, y, 0, 0, revealed, height);
+    }
+
+    private static void wipeUp(Image source, Image target, double progress, Graphics2D destination, int x, int y,
+                               int width, int height) {
+        int revealed = Math.toIntExact(Math.round(height * progress));
+        destination.drawImage(source, x, y, null);
+        TransitionRenderer.drawRegion(destination, target, x, y, 0, height - revealed, width, revealed);
+    }
+
+    private static void wipeDown(Image source, Image target, double progress, Graphics2D destination, int x, int y,
+                                 int width, int height) {
+        int revealed = Math.toIntExact(Math.round(height * progress));
+        destination.drawImage(source, x, y, null);
+        TransitionRenderer.drawRegion(destination, target, x, y, 0, 0, width, revealed);
+    }
+
+    private static void cross(Image source, Image target, double progress, Graphics2D destination, int x, int y,
+                              int width, int height) {
+        int w = Math.toIntExact(Math.round(width * progress / 2));
+        int h = Math.toIntExact(Math.round(height * progress / 2));
+        destination.drawImage(source, x, y, null);
+        TransitionRenderer.drawRegion(destination, target, x, y, 0, 0, w, h);
+        TransitionRenderer.drawRegion(destination, target, x, y, width - w, 0, w, h);
+        TransitionRenderer.drawRegion(destination, target, x, y, 0, height - h, w, h);
+        TransitionRenderer.drawRegion(destination, target, x, y, width - w, height - h, w, h);
+    }
+
+    /**
+     * The next slide only appears once the transition is over.
+     */
+    private static void none(Image source, Image target, double progress, Graphics2D destination, int x, int y,
+                             int width, int height) {
+        destination.drawImage(source, x, y, null);
+    }
+}
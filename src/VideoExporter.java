@@ -0,0 +1,285 @@
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import javax.xml.stream.XMLStreamException;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Renders a presentation offline, as a PNG frame sequence or a Motion JPEG AVI, with the same transitions and timing
+ * as the player. Each slide is one segment: the transition from the previous slide followed by the slide itself for
+ * the rest of its interval. Segments are rendered and encoded in parallel and written in order.
+ *
+ * Usage: <code>VideoExporter presentation.xml (output.avi | output-directory) [fps]</code>
+ */
+public class VideoExporter {
+    private static final int DEFAULT_SLIDE_SECONDS = 5;
+    private static final int SLIDE_CACHE_MB = 64;
+
+    private final SlidesConfig slidesConfig;
+    private final int width;
+    private final int height;
+    private final int fps;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private float jpegQuality = 0.9f;
+
+    private final SlideCache<BufferedImage> slideCache;
+    private final ThreadLocal<FrameRenderer> frameRenderers;
+
+    /**
+     * Constructor. Initializes the private variables.
+     *
+     * @param slidesConfig presentation to render
+     * @param width        width of the video
+     * @param height       height of the video
+     * @param fps          frame rate of the video
+     */
+    public VideoExporter(SlidesConfig slidesConfig, int width, int height, int fps) {
+        this.slidesConfig = slidesConfig;
+        this.width = width;
+        this.height = height;
+        this.fps = fps;
+        this.slideCache = new SlideCache<>(this::loadSlide, SlideCache::sizeOf, SLIDE_CACHE_MB);
+        this.frameRenderers = ThreadLocal.withInitial(FrameRenderer::new);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: VideoExporter presentation.xml (output.avi | output-directory) [fps]");
+            System.exit(2);
+        }
+        System.setProperty("java.awt.headless", "true");
+        FileLoad fileLoad;
+        try {
+            fileLoad = new FileLoad(new File(args[0]));
+        } catch (XMLStreamException e) {
+            fileLoad = null;
+        }
+        if (fileLoad == null || !fileLoad.isValid()) {
+            System.err.println("Not a valid presentation: " + args[0]);
+            System.exit(1);
+        }
+        int fps = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        VideoExporter exporter = new VideoExporter(fileLoad.getSlidesConfig(), SlidesPlayer.IMAGE_WIDTH,
+                SlidesPlayer.IMAGE_HEIGHT, fps);
+        File output = new File(args[1]);
+        long start = System.nanoTime();
+        int frames = output.getName().toLowerCase().endsWith(".avi") ? exporter.exportVideo(output)
+                : exporter.exportFrames(output);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d frames (%.1f s of video) in %.1f s%n", frames, 1.0 * frames / fps, seconds);
+    }
+
+    /**
+     * Public setter for private variable.
+     *
+     * @param threads number of segments rendered at the same time
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Public setter for private variable.
+     *
+     * @param jpegQuality quality of the frames of the video, between 0 and 1
+     */
+    public void setJpegQuality(float jpegQuality) {
+        this.jpegQuality = jpegQuality;
+    }
+
+    /**
+     * Renders the presentation as numbered PNG files.
+     *
+     * @param directory directory the frames are written to, created if needed
+     * @return the number of frames written
+     * @throws IOException if a frame cannot be written
+     */
+    public int exportFrames(File directory) throws IOException {
+        Files.createDirectories(directory.toPath());
+        int[] frame = {0};
+        export("png", data -> Files.write(new File(directory, String.format("frame_%06d.png", frame[0]++)).toPath(), data));
+        return frame[0];
+    }
+
+    /**
+     * Renders the presentation as a Motion JPEG AVI file.
+     *
+     * @param file video file to create
+     * @return the number of frames written
+     * @throws IOException if the video cannot be written
+     */
+    public int exportVideo(File file) throws IOException {
+        try (MjpegAviWriter writer = new MjpegAviWriter(file, width, height, fps)) {
+            export("jpeg", writer::writeFrame);
+            return writer.getFrameCount();
+        }
+    }
+
+    /**
+     * Renders the segments on the worker pool and passes their frames to the sink in presentation order. Only a
+     * few segments are queued ahead of the one being written, so the encoded frames held in memory stay bounded.
+     */
+    private void export(String format, FrameSink sink) throws IOException {
+        int slideCount = slidesConfig.getSlidesFileList().length;
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "video-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Deque<Future<List<EncodedFrame>>> queued = new ArrayDeque<>();
+        try {
+            for (int i = 0; i < slideCount; i++) {
+                if (queued.size() >= 2 * threads)
+                    write(queued.removeFirst(), sink);
+                int slide = i;
+                queued.addLast(workers.submit(() -> renderSegment(slide, format)));
+            }
+            while (!queued.isEmpty())
+                write(queued.removeFirst(), sink);
+        } finally {
+            workers.shutdownNow();
+            slideCache.clear();
+        }
+    }
+
+    private static void write(Future<List<EncodedFrame>> segment, FrameSink sink) throws IOException {
+        try {
+            for (EncodedFrame frame : segment.get())
+                for (int i = 0; i < frame.repeat; i++)
+                    sink.write(frame.data);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Export interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IOException("Could not render the presentation", e.getCause());
+        }
+    }
+
+    /**
+     * Renders the frames of one slide: the transition from the previous slide, timed like the player, then the
+     * slide itself until the next one starts. The still frames are encoded once.
+     *
+     * @param slide  index of the slide
+     * @param format image format the frames are encoded to
+     * @return the encoded frames, in order
+     */
+    private List<EncodedFrame> renderSegment(int slide, String format) throws IOException {
+        int interval = slidesConfig.getSlideIntervalSeconds() > 0 ? slidesConfig.getSlideIntervalSeconds()
+                : DEFAULT_SLIDE_SECONDS;
+        int segmentFrames = interval * fps;
+        FrameRenderer renderer = frameRenderers.get();
+        BufferedImage target = slideCache.get(slide);
+        List<EncodedFrame> frames = new ArrayList<>();
+
+        int transitionFrames = 0;
+        if (slide > 0) {
+            SlideEffect[] effects = slidesConfig.getSlideEffects();
+            SlideEffect effect = effects[slide - 1];
+            BufferedImage source = slideCache.get(slide - 1);
+            transitionFrames = Math.min(segmentFrames, effect.getDuration() * fps);
+            for (int i = 0; i < transitionFrames; i++) {
+                double progress = 1.0 * i / transitionFrames;
+                frames.add(new EncodedFrame(renderer.encode(renderer.render(source, target, progress, effect), format), 1));
+            }
+        }
+        if (transitionFrames < segmentFrames)
+            frames.add(new EncodedFrame(renderer.encode(renderer.render(null, target, 0, null), format),
+                    segmentFrames - transitionFrames));
+        return frames;
+    }
+
+    private BufferedImage loadSlide(int index) {
+        try {
+            return ImageScaler.read(new File(slidesConfig.getSlidesFileList()[index]), width, height);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+    }
+
+    /**
+     * Receives the encoded frames in presentation order.
+     */
+    private interface FrameSink {
+        void write(byte[] data) throws IOException;
+    }
+
+    /**
+     * An encoded frame and the number of times it is shown in a row.
+     */
+    private static class EncodedFrame {
+        private final byte[] data;
+        private final int repeat;
+
+        private EncodedFrame(byte[] data, int repeat) {
+            this.data = data;
+            this.repeat = repeat;
+        }
+    }
+
+    /**
+     * Frame buffer and encoders of one worker thread, reused for every frame the thread renders.
+     */
+    private class FrameRenderer {
+        private final BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        private final Graphics2D graphics = frame.createGraphics();
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private ImageWriter jpegWriter;
+        private ImageWriter pngWriter;
+
+        private BufferedImage render(BufferedImage source, BufferedImage target, double progress, SlideEffect effect) {
+            graphics.setColor(Color.BLACK);
+            graphics.fillRect(0, 0, width, height);
+            int x = (width - target.getWidth()) / 2;
+            int y = (height - target.getHeight()) / 2;
+            if (effect != null)
+                effect.getRenderer().render(source, target, progress, graphics, x, y, target.getWidth(), target.getHeight());
+            else
+                graphics.drawImage(target, x, y, null);
+            return frame;
+        }
+
+        private byte[] encode(BufferedImage image, String format) throws IOException {
+            ImageWriter writer;
+            ImageWriteParam param;
+            if (format.equals("jpeg")) {
+                if (jpegWriter == null)
+                    jpegWriter = ImageIO.getImageWritersByFormatName("jpeg").next();
+                writer = jpegWriter;
+                param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+            } else {
+                if (pngWriter == null)
+                    pngWriter = ImageIO.getImageWritersByFormatName("png").next();
+                writer = pngWriter;
+                param = null;
+            }
+            output.reset();
+            try (ImageOutputStream stream = new MemoryCacheImageOutputStream(output)) {
+                writer.setOutput(stream);
+                writer.write(null, new IIOImage(image, null, null), param);
+            }
+            return output.toByteArray();
+        }
+    }
+}